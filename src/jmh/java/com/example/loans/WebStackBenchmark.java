@@ -0,0 +1,101 @@
+package com.example.loans;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end latency of the servlet (Tomcat, thread per request) and reactive (Reactor Netty) modes.
+ * Every benchmark thread is one keep-alive client connection, so concurrency is set with {@code -t},
+ * e.g. {@code -t 1}, {@code -t 64}, {@code -t 256}. SampleTime mode reports latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebStackBenchmark {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    @Param({"servlet", "reactive"})
+    String mode;
+
+    ConfigurableApplicationContext context;
+    String baseUrl;
+    final AtomicLong customers = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(LoansApplication.class)
+                .properties("server.port=0", "logging.level.com.example.loans=WARN");
+        if ("reactive".equals(mode)) {
+            builder.profiles("reactive");
+        }
+        context = builder.run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/loans";
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getStatistics() throws IOException {
+        return exchange("GET", "/statistics", null);
+    }
+
+    @Benchmark
+    public int createApprovalRequest() throws IOException {
+        String body = "{\"customerId\":\"" + nextCustomerId() + "\",\"loanAmount\":123.45,\"approvers\":[\"Senior Approver\"]}";
+        return exchange("POST", "/approval-request", body);
+    }
+
+    /**
+     * Reads the whole response, so HttpURLConnection returns the connection to its keep-alive cache.
+     */
+    private int exchange(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            byte[] buffer = new byte[512];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                sink.write(buffer, 0, read);
+            }
+        }
+        return status;
+    }
+
+    private String nextCustomerId() {
+        long n = customers.incrementAndGet();
+        char[] chars = {'W', 'S', '-', '0', '0', '0', '0', '-', '0', '0', '0'};
+        for (int position = 10; position > 2 && n > 0; position--) {
+            if (position != 7) {
+                chars[position] = ALPHABET[(int) (n % ALPHABET.length)];
+                n /= ALPHABET.length;
+            }
+        }
+        return new String(chars);
+    }
+}
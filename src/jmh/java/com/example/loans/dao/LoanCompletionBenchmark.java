@@ -0,0 +1,140 @@
+package com.example.loans.dao;
+
+import com.example.loans.finance.Amount;
+import com.example.loans.finance.SlidingWindowStatistics;
+import com.example.loans.model.Approver;
+import com.example.loans.model.Decision;
+import com.example.loans.model.LoanApprovalRequest;
+import com.example.loans.model.LoanRecord;
+import com.example.loans.notification.NotificationPipeline;
+import com.example.loans.notification.OverflowPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+
+/**
+ * Full life cycle of a loan: approval request, then the decisions of its three approvers, the last one completing
+ * and notifying. Every thread works on its own customers, so throughput should grow with the thread count
+ * up to the number of cores; the variants run on 1, 2, 4 and 8 threads. Finished loans are dropped after every iteration.
+ * {@code engine} compares writes on the calling threads with the sharded single-writer engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class LoanCompletionBenchmark {
+
+    private static final String[] APPROVERS = {"Junior Approver", "Senior Approver", "Risk Approver"};
+    private static final int CUSTOMERS_PER_THREAD = 1_000_000;
+
+    @Param({"concurrent", "sharded"})
+    String engine;
+
+    LoanRepository repository;
+    NotificationPipeline notificationPipeline;
+    ShardedLoanEngine shardedEngine;
+    final AtomicInteger nextThread = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        notificationPipeline = new NotificationPipeline(notifications -> { }, new ObjectMapper(),
+                10_000, OverflowPolicy.SHED, 1000, 1, Duration.ZERO, "unused.spill");
+        notificationPipeline.start();
+        LongConcurrentHashMap<LoanRecord> pendingLoans = new LongConcurrentHashMap<>();
+        SlidingWindowStatistics contractStatistics = new SlidingWindowStatistics(Duration.ofSeconds(60));
+        repository = new LoanRepository(pendingLoans,
+                new ConcurrentHashMap<>(),
+                new ConcurrentSkipListMap<>(),
+                contractStatistics,
+                notificationPipeline);
+        if ("sharded".equals(engine)) {
+            shardedEngine = new ShardedLoanEngine(pendingLoans, contractStatistics, 0, 4096);
+            shardedEngine.start();
+            repository.setEngine(shardedEngine);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws InterruptedException {
+        if (shardedEngine != null) {
+            shardedEngine.stop();
+        }
+        notificationPipeline.stop();
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeFinishedLoans() {
+        repository.loanHistory.clear();
+        repository.completions.clear();
+    }
+
+    @State(Scope.Thread)
+    public static class Customers {
+        int first;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setup(LoanCompletionBenchmark benchmark) {
+            first = benchmark.nextThread.getAndIncrement() * CUSTOMERS_PER_THREAD;
+        }
+
+        String nextCustomerId() {
+            next = (next + 1) % CUSTOMERS_PER_THREAD;
+            return PendingLoansBenchmark.customerId(first + next);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void complete1(Customers customers) {
+        complete(customers.nextCustomerId());
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void complete2(Customers customers) {
+        complete(customers.nextCustomerId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void complete4(Customers customers) {
+        complete(customers.nextCustomerId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void complete8(Customers customers) {
+        complete(customers.nextCustomerId());
+    }
+
+    private void complete(String customerId) {
+        repository.saveAsPending(LoanApprovalRequest.builder()
+                .customerId(customerId)
+                .loanAmount(Amount.ofCents(123_45))
+                .approvers(new LinkedHashSet<>(Arrays.asList(
+                        new Approver(APPROVERS[0]), new Approver(APPROVERS[1]), new Approver(APPROVERS[2]))))
+                .timestamp(ZonedDateTime.now())
+                .build());
+        for (String approver : APPROVERS) {
+            repository.save(Decision.builder()
+                    .customerId(customerId)
+                    .approverUsername(approver)
+                    .state(APPROVED)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.loans.dao;
+
+import com.example.loans.finance.Amount;
+import com.example.loans.finance.SlidingWindowStatistics;
+import com.example.loans.model.Approver;
+import com.example.loans.model.CustomerId;
+import com.example.loans.model.Decision;
+import com.example.loans.model.LoanApprovalRequest;
+import com.example.loans.metrics.LoanMetrics;
+import com.example.loans.notification.NotificationPipeline;
+import com.example.loans.notification.OverflowPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+import static com.example.loans.model.DecisionState.DECLINED;
+
+/**
+ * Repository hot paths on a populated loan book: {@code loans} pending loans with two approvers
+ * plus one finished loan per ten pending ones, completed within the statistics window.
+ * <p>
+ * Decisions come from the junior approver only, so they are recorded but never complete a loan
+ * and the book keeps its size. Loans added by {@code saveAsPending} are removed after every iteration.
+ * The contended variants run on 4 threads, {@code -t} overrides the thread count of every benchmark.
+ * {@code metrics} compares the no-op meters with Prometheus meters, the cost of recording on the hot path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+public class LoanRepositoryBenchmark {
+
+    private static final String JUNIOR = "Junior Approver";
+    private static final String SENIOR = "Senior Approver";
+
+    @Param({"10000", "1000000", "10000000"})
+    int loans;
+
+    @Param({"none", "prometheus"})
+    String metrics;
+
+    LoanRepository repository;
+    NotificationPipeline notificationPipeline;
+    final AtomicInteger nextCustomer = new AtomicInteger();
+    int iterationFirstCustomer;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        notificationPipeline = new NotificationPipeline(notifications -> { }, new ObjectMapper(),
+                10_000, OverflowPolicy.SHED, 1000, 1, Duration.ZERO, "unused.spill");
+        notificationPipeline.start();
+        repository = new LoanRepository(new LongConcurrentHashMap<>(64, loans + loans / 4),
+                new ConcurrentHashMap<>(),
+                new ConcurrentSkipListMap<>(),
+                new SlidingWindowStatistics(Duration.ofSeconds(60)),
+                notificationPipeline);
+        if ("prometheus".equals(metrics)) {
+            repository.setMetrics(new LoanMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)));
+        }
+
+        int finished = loans / 10;
+        List<LoanApprovalRequest> requests = new ArrayList<>(10_000);
+        for (int i = 0; i < loans + finished; i++) {
+            requests.add(request(i, 100_00 + i % 100_000));
+            if (requests.size() == 10_000) {
+                repository.saveAllAsPending(requests);
+                requests.clear();
+            }
+        }
+        repository.saveAllAsPending(requests);
+
+        List<Decision> decisions = new ArrayList<>(2 * finished);
+        for (int i = loans; i < loans + finished; i++) {
+            decisions.add(decision(i, JUNIOR));
+            decisions.add(decision(i, SENIOR));
+        }
+        repository.saveAll(decisions);
+        nextCustomer.set(loans + finished);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws InterruptedException {
+        notificationPipeline.stop();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        iterationFirstCustomer = nextCustomer.get();
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeAddedLoans() {
+        for (int i = iterationFirstCustomer; i < nextCustomer.get(); i++) {
+            repository.pendingLoans.remove(CustomerId.encode(PendingLoansBenchmark.customerId(i)));
+        }
+    }
+
+    @Benchmark
+    public void saveAsPending() {
+        repository.saveAsPending(request(nextCustomer.getAndIncrement(), 123_45));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void saveAsPendingContended() {
+        repository.saveAsPending(request(nextCustomer.getAndIncrement(), 123_45));
+    }
+
+    @Benchmark
+    public void save() {
+        repository.save(randomDecision());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void saveContended() {
+        repository.save(randomDecision());
+    }
+
+    /**
+     * Every thread decides on the same loan, all CAS updates hit one decision mask.
+     */
+    @Benchmark
+    @Threads(4)
+    public void saveSameLoan() {
+        repository.save(Decision.builder()
+                .customerId(PendingLoansBenchmark.customerId(0))
+                .approverUsername(JUNIOR)
+                .state(ThreadLocalRandom.current().nextBoolean() ? APPROVED : DECLINED)
+                .build());
+    }
+
+    @Benchmark
+    public Object getStatistics() {
+        return repository.getStatistics(Duration.ofSeconds(60));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object getStatisticsContended() {
+        return repository.getStatistics(Duration.ofSeconds(60));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void mixedSaveAsPending() {
+        repository.saveAsPending(request(nextCustomer.getAndIncrement(), 123_45));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void mixedSave() {
+        repository.save(randomDecision());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Object mixedGetStatistics() {
+        return repository.getStatistics(Duration.ofSeconds(60));
+    }
+
+    private Decision randomDecision() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Decision.builder()
+                .customerId(PendingLoansBenchmark.customerId(random.nextInt(loans)))
+                .approverUsername(JUNIOR)
+                .state(random.nextBoolean() ? APPROVED : DECLINED)
+                .build();
+    }
+
+    private static Decision decision(int customer, String approver) {
+        return Decision.builder()
+                .customerId(PendingLoansBenchmark.customerId(customer))
+                .approverUsername(approver)
+                .state(APPROVED)
+                .build();
+    }
+
+    private static LoanApprovalRequest request(int customer, long cents) {
+        return LoanApprovalRequest.builder()
+                .customerId(PendingLoansBenchmark.customerId(customer))
+                .loanAmount(Amount.ofCents(cents))
+                .approvers(new LinkedHashSet<>(Arrays.asList(new Approver(JUNIOR), new Approver(SENIOR))))
+                .timestamp(ZonedDateTime.now())
+                .build();
+    }
+}
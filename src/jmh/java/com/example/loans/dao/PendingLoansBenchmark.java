@@ -0,0 +1,117 @@
+package com.example.loans.dao;
+
+import com.example.loans.finance.Amount;
+import com.example.loans.model.Approver;
+import com.example.loans.model.CustomerId;
+import com.example.loans.model.Decision;
+import com.example.loans.model.LoanApprovalRequest;
+import com.example.loans.model.LoanRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.loans.model.DecisionState.PENDING;
+
+/**
+ * Pending loan lookup by customer id: the original ApprovalRequest keyed map
+ * (throwaway lookup key per call), a String keyed map and the long keyed open-addressing map.
+ * Every lookup uses a freshly built id String, like one parsed from a request body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PendingLoansBenchmark {
+
+    @Param({"100000", "1000000"})
+    int customers;
+
+    ConcurrentHashMap<PendingKey, ConcurrentHashMap<String, Decision>> approvalRequestKeyed;
+    ConcurrentHashMap<String, LoanRecord> stringKeyed;
+    LongConcurrentHashMap<LoanRecord> longKeyed;
+
+    @Setup
+    public void setup() {
+        approvalRequestKeyed = new ConcurrentHashMap<>();
+        stringKeyed = new ConcurrentHashMap<>();
+        longKeyed = new LongConcurrentHashMap<>();
+
+        for (int i = 0; i < customers; i++) {
+            String customerId = customerId(i);
+            LoanRecord loanRecord = LoanRecord.pending(LoanApprovalRequest.builder()
+                    .uuid(UUID.randomUUID())
+                    .customerId(customerId)
+                    .loanAmount(Amount.ofCents(12345))
+                    .approvers(Collections.singleton(new Approver("Senior Approver")))
+                    .build());
+
+            ConcurrentHashMap<String, Decision> decisions = new ConcurrentHashMap<>();
+            decisions.put("Senior Approver", Decision.builder()
+                    .customerId(customerId)
+                    .approverUsername("Senior Approver")
+                    .state(PENDING)
+                    .build());
+            approvalRequestKeyed.put(new PendingKey(customerId), decisions);
+            stringKeyed.put(customerId, loanRecord);
+            longKeyed.put(loanRecord.getCustomerCode(), loanRecord);
+        }
+    }
+
+    @Benchmark
+    public Object approvalRequestKeyedLookup() {
+        return approvalRequestKeyed.get(new PendingKey(nextCustomerId()));
+    }
+
+    @Benchmark
+    public Object stringKeyedLookup() {
+        return stringKeyed.get(nextCustomerId());
+    }
+
+    @Benchmark
+    public Object longKeyedLookup() {
+        return longKeyed.get(CustomerId.encode(nextCustomerId()));
+    }
+
+    private String nextCustomerId() {
+        return customerId(ThreadLocalRandom.current().nextInt(customers));
+    }
+
+    static String customerId(int i) {
+        char[] chars = {'A', 'B', '-', '0', '0', '0', '0', '-', '0', '0', '0'};
+        for (int position = 10; position > 2; position--) {
+            if (position != 7) {
+                chars[position] = (char) ('0' + i % 10);
+                i /= 10;
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Mirrors the former pending LoanApprovalRequest key: equality and hash on customerId only.
+     */
+    static final class PendingKey {
+        final String customerId;
+
+        PendingKey(String customerId) {
+            this.customerId = customerId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PendingKey && Objects.equals(customerId, ((PendingKey) o).customerId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(customerId);
+        }
+    }
+}
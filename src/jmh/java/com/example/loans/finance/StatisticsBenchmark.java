@@ -0,0 +1,149 @@
+package com.example.loans.finance;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summary statistics of loan amounts: the BigDecimal accumulator against the cents based one,
+ * and recording into / reading from the sliding window, alone and with 4 recording threads.
+ * The window holds one hour; the snapshot variants show that a one-hour snapshot costs about as much as a one-minute one.
+ * The {@code histogram} variants also count amounts per cent and read percentiles and the distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatisticsBenchmark {
+
+    private static final int AMOUNTS = 1024;
+
+    final BigDecimal[] decimals = new BigDecimal[AMOUNTS];
+    final long[] cents = new long[AMOUNTS];
+    SlidingWindowStatistics window;
+    SlidingWindowStatistics histogramWindow;
+
+    @Setup
+    public void setup() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < AMOUNTS; i++) {
+            cents[i] = random.nextLong(1, AmountHistogram.MAX_CENTS + 1);
+            decimals[i] = BigDecimal.valueOf(cents[i], 2);
+        }
+        window = new SlidingWindowStatistics(Duration.ofHours(1));
+        histogramWindow = new SlidingWindowStatistics(Duration.ofHours(1), true);
+        long now = System.currentTimeMillis();
+        for (int second = 0; second < 3600; second++) {
+            for (int i = 0; i < AMOUNTS; i++) {
+                window.record(cents[i], now - second * 1000L);
+                histogramWindow.record(cents[i], now - second * 1000L);
+            }
+        }
+    }
+
+    /**
+     * One accumulator per benchmark thread, merged into a fresh one like a bucket into a snapshot.
+     */
+    @State(Scope.Thread)
+    public static class Accumulators {
+        final BigDecimalSummaryStatistics decimals = new BigDecimalSummaryStatistics();
+        final AmountSummaryStatistics cents = new AmountSummaryStatistics();
+        int next;
+
+        int nextIndex() {
+            next = (next + 1) & (AMOUNTS - 1);
+            return next;
+        }
+    }
+
+    @Benchmark
+    public Object bigDecimalAccept(Accumulators accumulators) {
+        accumulators.decimals.accept(decimals[accumulators.nextIndex()]);
+        return accumulators.decimals;
+    }
+
+    @Benchmark
+    public Object bigDecimalMerge(Accumulators accumulators) {
+        accumulators.decimals.accept(decimals[accumulators.nextIndex()]);
+        return new BigDecimalSummaryStatistics().merge(accumulators.decimals);
+    }
+
+    @Benchmark
+    public Object amountAccept(Accumulators accumulators) {
+        accumulators.cents.accept(cents[accumulators.nextIndex()]);
+        return accumulators.cents;
+    }
+
+    @Benchmark
+    public Object amountMerge(Accumulators accumulators) {
+        accumulators.cents.accept(cents[accumulators.nextIndex()]);
+        return new AmountSummaryStatistics().merge(accumulators.cents);
+    }
+
+    @Benchmark
+    public void windowRecord(Accumulators accumulators) {
+        window.record(cents[accumulators.nextIndex()]);
+    }
+
+    /**
+     * All threads record into the bucket of the current second.
+     */
+    @Benchmark
+    @Threads(4)
+    public void windowRecordContended(Accumulators accumulators) {
+        window.record(cents[accumulators.nextIndex()]);
+    }
+
+    @Benchmark
+    public Object windowSnapshot() {
+        return window.snapshot(Duration.ofSeconds(60));
+    }
+
+    @Benchmark
+    public Object windowSnapshot5Min() {
+        return window.snapshot(Duration.ofMinutes(5));
+    }
+
+    @Benchmark
+    public Object windowSnapshot1Hour() {
+        return window.snapshot(Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public void histogramWindowRecord(Accumulators accumulators) {
+        histogramWindow.record(cents[accumulators.nextIndex()]);
+    }
+
+    @Benchmark
+    public long[] histogramSnapshot() {
+        AmountDistribution distribution = new AmountDistribution();
+        histogramWindow.snapshot(Duration.ofSeconds(60), distribution);
+        return distribution.percentiles(500, 900, 990);
+    }
+
+    @Benchmark
+    public long[] histogramSnapshot1Hour() {
+        AmountDistribution distribution = new AmountDistribution();
+        histogramWindow.snapshot(Duration.ofHours(1), distribution);
+        return distribution.percentiles(500, 900, 990);
+    }
+
+    @Benchmark
+    @Group("recordAndSnapshot")
+    @GroupThreads(3)
+    public void groupRecord(Accumulators accumulators) {
+        window.record(cents[accumulators.nextIndex()]);
+    }
+
+    @Benchmark
+    @Group("recordAndSnapshot")
+    @GroupThreads(1)
+    public Object groupSnapshot() {
+        return window.snapshot(Duration.ofSeconds(60));
+    }
+}
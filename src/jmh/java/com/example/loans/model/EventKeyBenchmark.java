@@ -0,0 +1,111 @@
+package com.example.loans.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EventKey ordering: a single comparison (same millisecond, so the sequence is compared too)
+ * and the skip list operations of the completion index with {@code events} keys,
+ * spread over the last hour. Also loan id creation, random UUIDs against {@link LoanIdGenerator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class EventKeyBenchmark {
+
+    private static final int KEYS = 1024;
+    private static final UUID VALUE = new UUID(0, 0);
+
+    @Param({"10000", "1000000"})
+    int events;
+
+    final EventKey[] keys = new EventKey[KEYS];
+    final EventKey[] sameMillisecond = new EventKey[KEYS];
+    final LoanIdGenerator idGenerator = new LoanIdGenerator(1);
+    ConcurrentSkipListMap<EventKey, UUID> index;
+
+    @Setup
+    public void setup() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        long firstMillis = now - 3_600_000;
+        index = new ConcurrentSkipListMap<>();
+        for (int i = 0; i < events; i++) {
+            long createdMillis = firstMillis + random.nextLong(3_600_000);
+            UUID uuid = idGenerator.next(createdMillis);
+            index.put(new EventKey(createdMillis, uuid.getLeastSignificantBits()), uuid);
+        }
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = new EventKey(firstMillis + random.nextLong(3_600_000), idGenerator.nextSequence());
+            sameMillisecond[i] = new EventKey(now, idGenerator.nextSequence());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int nextIndex() {
+            next = (next + 1) & (KEYS - 1);
+            return next;
+        }
+    }
+
+    @Benchmark
+    public int compareTo(Cursor cursor) {
+        int i = cursor.nextIndex();
+        return sameMillisecond[i].compareTo(sameMillisecond[(i + 1) & (KEYS - 1)]);
+    }
+
+    @Benchmark
+    public Object insertAndRemove(Cursor cursor) {
+        EventKey key = keys[cursor.nextIndex()];
+        index.put(key, VALUE);
+        return index.remove(key);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object insertAndRemoveContended(Cursor cursor) {
+        EventKey key = keys[cursor.nextIndex()];
+        index.put(key, VALUE);
+        return index.remove(key);
+    }
+
+    /**
+     * Lookup of a range bound, as done by the compaction task and cursor based reads.
+     */
+    @Benchmark
+    public Object ceilingKey(Cursor cursor) {
+        return index.ceilingKey(EventKey.first(keys[cursor.nextIndex()].getEpochMillis()));
+    }
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID randomUuidContended() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID generatedId() {
+        return idGenerator.next(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID generatedIdContended() {
+        return idGenerator.next(System.currentTimeMillis());
+    }
+}
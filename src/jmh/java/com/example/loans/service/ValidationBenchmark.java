@@ -0,0 +1,93 @@
+package com.example.loans.service;
+
+import com.example.loans.dto.DecisionDto;
+import com.example.loans.dto.LoanApprovalRequestDto;
+import com.example.loans.exception.InvalidRequestException;
+import com.example.loans.model.CustomerId;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.Validation;
+import javax.validation.ValidatorFactory;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+
+/**
+ * Request validation done on every call before the repository is touched:
+ * bean validation of request bodies (valid and rejected) and customer id encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    ValidatorFactory validatorFactory;
+    LoanService loanService;
+    LoanApprovalRequestDto approvalRequest;
+    LoanApprovalRequestDto invalidApprovalRequest;
+    DecisionDto decision;
+
+    @Setup
+    public void setup() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        loanService = new LoanService();
+        loanService.validator = validatorFactory.getValidator();
+
+        approvalRequest = LoanApprovalRequestDto.builder()
+                .customerId("XX-XXXX-X5X")
+                .loanAmount(new BigDecimal("123.45"))
+                .approvers(Arrays.asList("Senior Approver", "Junior Approver"))
+                .build();
+        invalidApprovalRequest = LoanApprovalRequestDto.builder()
+                .customerId("XX-XXXX-X5")
+                .loanAmount(new BigDecimal("1234.567"))
+                .approvers(Arrays.asList("Senior Approver", "Junior Approver"))
+                .build();
+        decision = DecisionDto.builder()
+                .customerId("XX-XXXX-X5X")
+                .approverUsername("Senior Approver")
+                .state(APPROVED.name())
+                .build();
+    }
+
+    @TearDown
+    public void close() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public void validApprovalRequest() {
+        loanService.requireValid(approvalRequest);
+    }
+
+    @Benchmark
+    public Object invalidApprovalRequest() {
+        try {
+            loanService.requireValid(invalidApprovalRequest);
+            return null;
+        } catch (InvalidRequestException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public void validDecision() {
+        loanService.requireValid(decision);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void validDecisionContended() {
+        loanService.requireValid(decision);
+    }
+
+    @Benchmark
+    public long encodeCustomerId() {
+        return CustomerId.encode(decision.getCustomerId());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.loans.snapshot;
+
+import com.example.loans.dao.LoanRepository;
+import com.example.loans.dao.LongConcurrentHashMap;
+import com.example.loans.finance.Amount;
+import com.example.loans.finance.SlidingWindowStatistics;
+import com.example.loans.model.Approver;
+import com.example.loans.model.EventKey;
+import com.example.loans.model.LoanApprovalRequest;
+import com.example.loans.model.LoanRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+
+/**
+ * Restore of a loan book from a snapshot into pre-sized maps, as done on boot.
+ * Loans were created over the last hour, one in ten is finished.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class SnapshotRestoreBenchmark {
+
+    @Param({"1000000"})
+    int loans;
+
+    Path directory;
+    SnapshotStore snapshotStore;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        snapshotStore = new SnapshotStore(directory, 1);
+        ZonedDateTime now = ZonedDateTime.now();
+        try (SnapshotWriter writer = snapshotStore.writer(new SnapshotHeader(System.currentTimeMillis(), 0, loans, loans / 10))) {
+            for (int i = 0; i < loans; i++) {
+                LoanRecord loanRecord = LoanRecord.pending(LoanApprovalRequest.builder()
+                        .uuid(UUID.randomUUID())
+                        .customerId(String.format("SN-%04d-%03d", i / 1000, i % 1000))
+                        .loanAmount(Amount.ofCents(10_000 + i % 100_000))
+                        .approvers(new LinkedHashSet<>(Arrays.asList(new Approver("Junior Approver"), new Approver("Senior Approver"))))
+                        .timestamp(now.minusSeconds(3600 - i * 3600L / loans))
+                        .build());
+                if (i % 10 == 0) {
+                    loanRecord.decide("Junior Approver", APPROVED);
+                    loanRecord.decide("Senior Approver", APPROVED);
+                    writer.completion(new EventKey(loanRecord.getTimestamp().plusSeconds(1).toInstant().toEpochMilli(), i), loanRecord);
+                } else {
+                    writer.pending(loanRecord);
+                }
+            }
+            writer.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int restore() {
+        SnapshotHeader header = snapshotStore.latestHeader().get();
+        LongConcurrentHashMap<LoanRecord> pendingLoans = new LongConcurrentHashMap<>(64, header.getPendingCount() + header.getPendingCount() / 4);
+        LoanRepository repository = new LoanRepository(pendingLoans,
+                new ConcurrentHashMap<>(header.getCompletionCount() + header.getCompletionCount() / 4),
+                new ConcurrentSkipListMap<>(), new SlidingWindowStatistics(Duration.ofSeconds(60)), null);
+        repository.setSnapshotStore(snapshotStore);
+        repository.restore();
+        return pendingLoans.size();
+    }
+}
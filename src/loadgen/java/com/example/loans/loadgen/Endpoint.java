@@ -0,0 +1,29 @@
+package com.example.loans.loadgen;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * API endpoints driven by the load generator.
+ */
+public enum Endpoint {
+
+    APPROVAL_REQUEST(HttpMethod.POST, "/api/loans/approval-request"),
+    DECISION(HttpMethod.POST, "/api/loans/decision"),
+    STATISTICS(HttpMethod.GET, "/api/loans/statistics");
+
+    private final HttpMethod method;
+    private final String path;
+
+    Endpoint(HttpMethod method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
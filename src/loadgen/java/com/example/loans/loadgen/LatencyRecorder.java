@@ -0,0 +1,126 @@
+package com.example.loans.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and response counts per endpoint. Latency is measured from the time a request
+ * was scheduled to be sent, not from when it was actually sent, so a stalled server is charged
+ * for every request that had to wait (no coordinated omission).
+ */
+public final class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+    private final AtomicLong firstScheduledNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastCompletedNanos = new AtomicLong(Long.MIN_VALUE);
+
+    public LatencyRecorder() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new Stats());
+        }
+    }
+
+    /**
+     * @param endpoint
+     * @param scheduledNanos {@link System#nanoTime()} at which the request was due
+     * @param completedNanos {@link System#nanoTime()} at which the response or error was received
+     * @param status HTTP status, or 0 if no response was received
+     */
+    public void record(Endpoint endpoint, long scheduledNanos, long completedNanos, int status) {
+        Stats endpointStats = stats.get(endpoint);
+        endpointStats.latency.recordValue(Math.min(Math.max(0, completedNanos - scheduledNanos), HIGHEST_TRACKABLE_NANOS));
+        if (status >= 200 && status < 300) {
+            endpointStats.succeeded.increment();
+        } else if (status >= 400 && status < 500) {
+            endpointStats.rejected.increment();
+        } else {
+            endpointStats.failed.increment();
+        }
+        firstScheduledNanos.accumulateAndGet(scheduledNanos, Math::min);
+        lastCompletedNanos.accumulateAndGet(completedNanos, Math::max);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (Stats endpointStats : stats.values()) {
+            count += endpointStats.latency.getTotalCount();
+        }
+        return count;
+    }
+
+    /**
+     * Prints one line per endpoint: responses, throughput over the whole run and latency percentiles in milliseconds.
+     * 4xx responses are counted as rejected, other non-2xx responses and I/O errors as failed.
+     */
+    public void printSummary(PrintStream out) {
+        double seconds = Math.max(1, lastCompletedNanos.get() - firstScheduledNanos.get()) / 1e9;
+        Histogram all = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        out.printf("%-17s %9s %9s %9s %10s %9s %9s %9s %9s%n",
+                "endpoint", "ok", "rejected", "failed", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Histogram latency = entry.getValue().latency.copy();
+            if (latency.getTotalCount() == 0) {
+                continue;
+            }
+            all.add(latency);
+            print(out, entry.getKey().name(), entry.getValue(), latency, seconds);
+        }
+        Stats total = new Stats();
+        for (Stats endpointStats : stats.values()) {
+            total.succeeded.add(endpointStats.succeeded.sum());
+            total.rejected.add(endpointStats.rejected.sum());
+            total.failed.add(endpointStats.failed.sum());
+        }
+        print(out, "ALL", total, all, seconds);
+    }
+
+    /**
+     * Writes the full percentile distribution of every endpoint as {@code <endpoint>.hgrm},
+     * in milliseconds, the format read by HdrHistogram plotters.
+     */
+    public void writeDistributions(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Histogram latency = entry.getValue().latency.copy();
+            if (latency.getTotalCount() == 0) {
+                continue;
+            }
+            Path file = directory.resolve(entry.getKey().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+                latency.outputPercentileDistribution(out, 1e6);
+            }
+        }
+    }
+
+    private static void print(PrintStream out, String name, Stats endpointStats, Histogram latency, double seconds) {
+        out.printf("%-17s %9d %9d %9d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                name,
+                endpointStats.succeeded.sum(),
+                endpointStats.rejected.sum(),
+                endpointStats.failed.sum(),
+                latency.getTotalCount() / seconds,
+                latency.getValueAtPercentile(50) / 1e6,
+                latency.getValueAtPercentile(99) / 1e6,
+                latency.getValueAtPercentile(99.9) / 1e6,
+                latency.getMaxValue() / 1e6);
+    }
+
+    private static final class Stats {
+        final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder failed = new LongAdder();
+    }
+}
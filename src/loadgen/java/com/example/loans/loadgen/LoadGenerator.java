@@ -0,0 +1,187 @@
+package com.example.loans.loadgen;
+
+import com.example.loans.LoansApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator. Sends the requests of a scenario at a fixed arrival rate, whether or not earlier
+ * requests were answered, and reports latency percentiles and throughput per endpoint.
+ * <p>
+ * Options, all {@code --name=value}:
+ * <ul>
+ * <li>{@code scenario} scenario file, default {@code build/loadgen/requests.jsonl}</li>
+ * <li>{@code generate} generate a scenario of this many loans into the scenario file first</li>
+ * <li>{@code statistics-share} share of statistics requests in a generated scenario, default 0.1</li>
+ * <li>{@code seed} random seed of a generated scenario</li>
+ * <li>{@code run} false to only generate, default true</li>
+ * <li>{@code target} base URL, default: starts the application in this JVM on a random port</li>
+ * <li>{@code rate} requests per second, default 500</li>
+ * <li>{@code warmup} number of leading requests sent but not recorded, default 0</li>
+ * <li>{@code connections} maximum open connections, default 256. Requests waiting for a connection are still
+ * charged from their scheduled time</li>
+ * <li>{@code report} directory of the summary and the {@code .hgrm} distributions, default {@code build/reports/loadgen}</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+
+    private final WebClient webClient;
+    private final double rate;
+    private final int warmup;
+
+    public LoadGenerator(WebClient webClient, double rate, int warmup) {
+        this.webClient = webClient;
+        this.rate = rate;
+        this.warmup = warmup;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Path scenarioFile = Paths.get(options.getOrDefault("scenario", "build/loadgen/requests.jsonl"));
+
+        Scenario scenario;
+        if (options.containsKey("generate")) {
+            scenario = Scenario.generate(Integer.parseInt(options.get("generate")),
+                    Double.parseDouble(options.getOrDefault("statistics-share", "0.1")),
+                    Long.parseLong(options.getOrDefault("seed", String.valueOf(System.nanoTime()))));
+            scenario.write(scenarioFile);
+            System.out.printf("Generated %d requests into %s%n", scenario.getRequests().size(), scenarioFile);
+        } else {
+            scenario = Scenario.read(scenarioFile);
+        }
+        if (!Boolean.parseBoolean(options.getOrDefault("run", "true"))) {
+            return;
+        }
+
+        ConfigurableApplicationContext localInstance = null;
+        String target = options.get("target");
+        if (target == null) {
+            localInstance = new SpringApplicationBuilder(LoansApplication.class)
+                    .properties("server.port=0", "logging.level.com.example.loans=WARN")
+                    .run();
+            target = "http://localhost:" + localInstance.getEnvironment().getProperty("local.server.port");
+        }
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("loadgen")
+                .maxConnections(Integer.parseInt(options.getOrDefault("connections", "256")))
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(5))
+                .build();
+        try {
+            WebClient webClient = WebClient.builder()
+                    .baseUrl(target)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                    .build();
+            double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+            LoadGenerator loadGenerator = new LoadGenerator(webClient, rate,
+                    Integer.parseInt(options.getOrDefault("warmup", "0")));
+
+            System.out.printf("Sending %d requests to %s at %.1f req/s%n", scenario.getRequests().size(), target, rate);
+            LatencyRecorder recorder = new LatencyRecorder();
+            long maxSendLagNanos = loadGenerator.run(scenario.getRequests(), recorder);
+
+            ByteArrayOutputStream summary = new ByteArrayOutputStream();
+            try (PrintStream out = new PrintStream(summary, true, "UTF-8")) {
+                out.printf("target %s, rate %.1f req/s, %d recorded requests, max send lag %.2f ms%n",
+                        target, rate, recorder.getCount(), maxSendLagNanos / 1e6);
+                recorder.printSummary(out);
+            }
+            System.out.print(summary.toString("UTF-8"));
+
+            Path report = Paths.get(options.getOrDefault("report", "build/reports/loadgen"));
+            recorder.writeDistributions(report);
+            Files.write(report.resolve("summary.txt"), summary.toByteArray());
+            System.out.printf("Latency distributions written to %s%n", report);
+        } finally {
+            connectionProvider.disposeLater().block();
+            if (localInstance != null) {
+                localInstance.close();
+            }
+        }
+    }
+
+    /**
+     * Sends request {@code i} at {@code start + i / rate} and waits for all responses.
+     * Latency is recorded from the scheduled send time.
+     *
+     * @param requests
+     * @param recorder
+     * @return largest delay between the scheduled and the actual send time. A large value means the generator
+     * itself could not keep up with the rate and the results understate the offered load
+     */
+    public long run(List<ScenarioRequest> requests, LatencyRecorder recorder) throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(requests.size());
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long maxSendLagNanos = 0;
+
+        for (int i = 0; i < requests.size(); i++) {
+            long scheduled = start + (long) (i * intervalNanos);
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            maxSendLagNanos = Math.max(maxSendLagNanos, -wait);
+
+            ScenarioRequest request = requests.get(i);
+            boolean recorded = i >= warmup;
+            send(request).subscribe(
+                    status -> {
+                        if (recorded) {
+                            recorder.record(request.getEndpoint(), scheduled, System.nanoTime(), status);
+                        }
+                        completed.countDown();
+                    },
+                    error -> {
+                        if (recorded) {
+                            recorder.record(request.getEndpoint(), scheduled, System.nanoTime(), 0);
+                        }
+                        completed.countDown();
+                    });
+        }
+        if (!completed.await(5, TimeUnit.MINUTES)) {
+            System.out.printf("%d requests still unanswered after 5 minutes%n", completed.getCount());
+        }
+        return maxSendLagNanos;
+    }
+
+    private Mono<Integer> send(ScenarioRequest request) {
+        WebClient.RequestBodySpec spec = webClient.method(request.getEndpoint().getMethod())
+                .uri(request.getEndpoint().getPath());
+        Mono<ClientResponse> exchange = request.getBody() == null
+                ? spec.exchange()
+                : spec.contentType(MediaType.APPLICATION_JSON).bodyValue(request.getBody()).exchange();
+        return exchange.flatMap(response -> response.releaseBody().thenReturn(response.rawStatusCode()));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.loans.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ordered list of requests, stored as newline delimited JSON, one {@link ScenarioRequest} per line.
+ * Requests are sent in file order, the arrival rate is chosen when the scenario is run.
+ */
+public final class Scenario {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+    private static final String[] APPROVERS = {"Senior Approver", "Junior Approver", "Risk Approver"};
+
+    /**
+     * Loans get their decisions this many approval requests later, so decisions always find a pending loan.
+     */
+    private static final int DECISION_LAG = 500;
+
+    private final List<ScenarioRequest> requests;
+
+    public Scenario(List<ScenarioRequest> requests) {
+        this.requests = Collections.unmodifiableList(requests);
+    }
+
+    public List<ScenarioRequest> getRequests() {
+        return requests;
+    }
+
+    public static Scenario read(Path file) throws IOException {
+        List<ScenarioRequest> requests = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                JsonNode node = MAPPER.readTree(line);
+                if (!node.hasNonNull("endpoint")) {
+                    throw new IOException("Missing endpoint on line " + lineNumber + " of " + file);
+                }
+                JsonNode body = node.get("body");
+                requests.add(new ScenarioRequest(Endpoint.valueOf(node.get("endpoint").asText()),
+                        body == null || body.isNull() ? null : MAPPER.writeValueAsString(body)));
+            }
+        }
+        return new Scenario(requests);
+    }
+
+    public void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (ScenarioRequest request : requests) {
+                ObjectNode line = MAPPER.createObjectNode();
+                line.put("endpoint", request.getEndpoint().name());
+                if (request.getBody() != null) {
+                    line.set("body", MAPPER.readTree(request.getBody()));
+                }
+                writer.write(MAPPER.writeValueAsString(line));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Generates the life cycle of {@code loans} loans: an approval request with 1 to 3 approvers,
+     * later followed by the decision of every approver (9 in 10 loans are approved),
+     * with statistics reads mixed in.
+     *
+     * @param loans
+     * @param statisticsShare share of statistics requests among all requests, 0 to 1
+     * @param seed random seed, also used for the customer id prefix so runs do not collide
+     * @return
+     */
+    public static Scenario generate(int loans, double statisticsShare, long seed) {
+        Random random = new Random(seed);
+        String prefix = "" + ALPHABET[random.nextInt(ALPHABET.length)] + ALPHABET[random.nextInt(ALPHABET.length)];
+        List<ScenarioRequest> requests = new ArrayList<>();
+        Deque<ObjectNode> undecided = new ArrayDeque<>();
+
+        for (int i = 0; i < loans || !undecided.isEmpty(); i++) {
+            if (i < loans) {
+                ObjectNode approvalRequest = approvalRequest(customerId(prefix, i), random);
+                add(requests, Endpoint.APPROVAL_REQUEST, approvalRequest, statisticsShare, random);
+                undecided.add(approvalRequest);
+            }
+            if (undecided.size() > DECISION_LAG || i >= loans) {
+                ObjectNode loan = undecided.poll();
+                String state = random.nextInt(10) == 0 ? "DECLINED" : "APPROVED";
+                for (JsonNode approver : loan.get("approvers")) {
+                    ObjectNode decision = MAPPER.createObjectNode();
+                    decision.put("customerId", loan.get("customerId").asText());
+                    decision.put("approverUsername", approver.asText());
+                    decision.put("state", state);
+                    add(requests, Endpoint.DECISION, decision, statisticsShare, random);
+                }
+            }
+        }
+        return new Scenario(requests);
+    }
+
+    private static void add(List<ScenarioRequest> requests, Endpoint endpoint, ObjectNode body,
+                            double statisticsShare, Random random) {
+        requests.add(new ScenarioRequest(endpoint, body.toString()));
+        while (random.nextDouble() < statisticsShare) {
+            requests.add(new ScenarioRequest(Endpoint.STATISTICS, null));
+        }
+    }
+
+    private static ObjectNode approvalRequest(String customerId, Random random) {
+        ObjectNode request = MAPPER.createObjectNode();
+        request.put("customerId", customerId);
+        request.put("loanAmount", (1 + random.nextInt(99_999)) / 100.0);
+        int approvers = 1 + random.nextInt(APPROVERS.length);
+        for (int i = 0; i < approvers; i++) {
+            request.withArray("approvers").add(APPROVERS[i]);
+        }
+        return request;
+    }
+
+    /**
+     * XX-XXXX-XXX id: two prefix characters followed by {@code index} in base 36.
+     */
+    private static String customerId(String prefix, int index) {
+        char[] chars = {prefix.charAt(0), prefix.charAt(1), '-', '0', '0', '0', '0', '-', '0', '0', '0'};
+        for (int position = 10; position > 2 && index > 0; position--) {
+            if (position != 7) {
+                chars[position] = ALPHABET[index % ALPHABET.length];
+                index /= ALPHABET.length;
+            }
+        }
+        return new String(chars);
+    }
+}
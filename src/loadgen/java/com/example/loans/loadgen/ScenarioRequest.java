@@ -0,0 +1,24 @@
+package com.example.loans.loadgen;
+
+/**
+ * One request of a scenario, a line of the scenario file: {@code {"endpoint":"DECISION","body":{...}}}.
+ * The body is kept as serialized JSON so sending does not serialize on the scheduling thread.
+ */
+public final class ScenarioRequest {
+
+    private final Endpoint endpoint;
+    private final String body;
+
+    public ScenarioRequest(Endpoint endpoint, String body) {
+        this.endpoint = endpoint;
+        this.body = body;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
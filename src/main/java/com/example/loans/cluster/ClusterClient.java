@@ -0,0 +1,203 @@
+package com.example.loans.cluster;
+
+import com.example.loans.exception.ApiError;
+import com.example.loans.exception.BusinessRuleException;
+import com.example.loans.finance.Amount;
+import com.example.loans.finance.AmountDistribution;
+import com.example.loans.finance.AmountSummaryStatistics;
+import com.example.loans.model.AmountCount;
+import com.example.loans.model.CustomerId;
+import com.example.loans.model.Statistics;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cluster mode, on with {@code app.cluster.enabled=true}. Nodes own customers by consistent hashing over the static
+ * member list {@code app.cluster.members} (comma separated base URLs, the same list on every node), {@code app.node-id}
+ * is the position of this node in the list. There is no coordination service: every node computes the same ring.
+ * <p>
+ * Requests for customers of other nodes are forwarded to the owner with the {@value #FORWARDED_HEADER} header,
+ * and a node always serves a forwarded request itself, so a request is forwarded at most once.
+ * Calls block up to {@code app.cluster.timeout}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterClient {
+
+    public static final String FORWARDED_HEADER = "X-Loans-Forwarded-By";
+
+    private final ConsistentHashRing ring;
+    private final int self;
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    public ClusterClient(@Value("${app.cluster.members}") String members,
+                         @Value("${app.node-id:0}") int nodeId,
+                         @Value("${app.cluster.virtual-nodes:128}") int virtualNodes,
+                         @Value("${app.cluster.timeout:2s}") Duration timeout,
+                         WebClient.Builder webClientBuilder) {
+        List<String> memberList = new ArrayList<>();
+        for (String member : StringUtils.commaDelimitedListToStringArray(members)) {
+            if (!member.trim().isEmpty()) {
+                memberList.add(StringUtils.trimTrailingCharacter(member.trim(), '/'));
+            }
+        }
+        if (nodeId >= memberList.size()) {
+            throw new IllegalArgumentException("app.node-id " + nodeId + " is not a position in app.cluster.members " + memberList);
+        }
+        this.ring = new ConsistentHashRing(memberList, virtualNodes);
+        this.self = nodeId;
+        this.webClient = webClientBuilder.build();
+        this.timeout = timeout;
+        log.info("Cluster member {} of {}: {}", nodeId, memberList.size(), memberList);
+    }
+
+    public int ownerOf(String customerId) {
+        return ring.ownerOf(CustomerId.encode(customerId));
+    }
+
+    public boolean owns(String customerId) {
+        return ownerOf(customerId) == self;
+    }
+
+    public int getSelf() {
+        return self;
+    }
+
+    public List<String> getMembers() {
+        return ring.getMembers();
+    }
+
+    /**
+     * Posts the body to the same path on another member and waits for the answer.
+     *
+     * @param member index in {@link #getMembers()}
+     * @param path
+     * @param body
+     * @param responseType
+     * @return
+     * @throws BusinessRuleException if the member answered 400, with its error message
+     * @throws ClusterException if the member could not be reached, timed out or failed otherwise
+     */
+    public <T> T forward(int member, String path, Object body, Class<T> responseType) {
+        return webClient.post()
+                .uri(ring.getMembers().get(member) + path)
+                .header(FORWARDED_HEADER, String.valueOf(self))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .flatMap(response -> {
+                    if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToMono(responseType);
+                    }
+                    if (response.statusCode() == HttpStatus.BAD_REQUEST) {
+                        return response.bodyToMono(ApiError.class)
+                                .flatMap(error -> Mono.<T>error(new BusinessRuleException(error.getErrors())));
+                    }
+                    return response.releaseBody()
+                            .then(Mono.<T>error(new ClusterException("Node " + member + " answered " + response.rawStatusCode() + " to " + path)));
+                })
+                .timeout(timeout)
+                .onErrorMap(e -> !(e instanceof BusinessRuleException) && !(e instanceof ClusterException),
+                        e -> new ClusterException("Node " + member + " did not answer " + path, e))
+                .block();
+    }
+
+    /**
+     * Local statistics of every other member, requested in parallel.
+     *
+     * @param path statistics path
+     * @param distribution the distributions of the peers are added to it, null if not requested
+     * @return one summary per peer
+     * @throws ClusterException if a peer did not answer, partial statistics are never returned
+     */
+    public List<AmountSummaryStatistics> peerStatistics(String path, AmountDistribution distribution) {
+        List<JsonNode> answers = getFromPeers(path, JsonNode.class);
+        List<AmountSummaryStatistics> summaries = new ArrayList<>(answers.size());
+        for (JsonNode peer : answers) {
+            summaries.add(toSummary(peer));
+            if (distribution != null) {
+                addDistribution(peer.get("distribution"), distribution);
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * GETs the same path on every other member in parallel.
+     *
+     * @param path encoded path and query
+     * @param responseType
+     * @return one answer per peer, in no particular order
+     * @throws ClusterException if a peer did not answer, partial answers are never returned
+     */
+    public <T> List<T> getFromPeers(String path, Class<T> responseType) {
+        List<Integer> peers = new ArrayList<>();
+        for (int member = 0; member < ring.getMembers().size(); member++) {
+            if (member != self) {
+                peers.add(member);
+            }
+        }
+        return Flux.fromIterable(peers)
+                .flatMap(member -> webClient.get()
+                        .uri(URI.create(ring.getMembers().get(member) + path))
+                        .header(FORWARDED_HEADER, String.valueOf(self))
+                        .retrieve()
+                        .bodyToMono(responseType)
+                        .onErrorMap(e -> new ClusterException("Node " + member + " did not answer " + path, e)))
+                .collectList()
+                .timeout(timeout)
+                .onErrorMap(e -> !(e instanceof ClusterException), e -> new ClusterException("Fan-out of " + path + " timed out", e))
+                .block();
+    }
+
+    /**
+     * Statistics as rendered by the API back in cents. Amounts have at most 2 fraction digits, so this is exact.
+     */
+    public static AmountSummaryStatistics toSummary(Statistics statistics) {
+        return AmountSummaryStatistics.of(statistics.getCount(), Amount.toCents(statistics.getSum()),
+                Amount.toCents(statistics.getMin()), Amount.toCents(statistics.getMax()));
+    }
+
+    public static AmountDistribution toDistribution(Statistics statistics) {
+        AmountDistribution distribution = new AmountDistribution();
+        for (AmountCount amountCount : statistics.getDistribution()) {
+            distribution.add((int) Amount.toCents(amountCount.getAmount()), amountCount.getCount());
+        }
+        return distribution;
+    }
+
+    private static void addDistribution(JsonNode amountCounts, AmountDistribution distribution) {
+        if (amountCounts == null) {
+            throw new ClusterException("Peer statistics without distribution");
+        }
+        for (JsonNode amountCount : amountCounts) {
+            distribution.add((int) cents(amountCount.get("amount")), amountCount.get("count").asLong());
+        }
+    }
+
+    private static AmountSummaryStatistics toSummary(JsonNode statistics) {
+        return AmountSummaryStatistics.of(statistics.get("count").asLong(), cents(statistics.get("sum")),
+                cents(statistics.get("min")), cents(statistics.get("max")));
+    }
+
+    private static long cents(JsonNode amount) {
+        return amount == null || amount.isNull() ? 0 : Amount.toCents(new BigDecimal(amount.asText()));
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.loans.cluster;
+
+/**
+ * A peer node did not answer a forwarded request or failed it, mapped to 503 Service Unavailable.
+ */
+public class ClusterException extends RuntimeException {
+    public ClusterException(String message) {
+        super(message);
+    }
+
+    public ClusterException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.loans.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consistent hashing of customer codes onto cluster members. Every member is placed on a 64-bit ring
+ * at {@code virtualNodes} points derived from its address, a customer belongs to the member of the first point
+ * at or after the customer's hash. Adding or removing a member only moves the customers of the ranges it takes
+ * or gives back. Immutable, lookups are a binary search over two flat arrays.
+ */
+public final class ConsistentHashRing {
+
+    private final List<String> members;
+    private final long[] points;
+    private final int[] owners;
+
+    public ConsistentHashRing(List<String> members, int virtualNodes) {
+        if (members.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A ring needs at least one member and one virtual node per member");
+        }
+        this.members = Collections.unmodifiableList(new ArrayList<>(members));
+
+        int size = members.size() * virtualNodes;
+        long[][] placed = new long[size][];
+        for (int member = 0; member < members.size(); member++) {
+            for (int i = 0; i < virtualNodes; i++) {
+                placed[member * virtualNodes + i] = new long[]{hash(members.get(member) + "#" + i), member};
+            }
+        }
+        Arrays.sort(placed, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = placed[i][0];
+            owners[i] = (int) placed[i][1];
+        }
+    }
+
+    /**
+     * @param customerCode {@link com.example.loans.model.CustomerId#encode(String)} of the customer
+     * @return index of the owning member in {@link #getMembers()}
+     */
+    public int ownerOf(long customerCode) {
+        int index = Arrays.binarySearch(points, mix(customerCode));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, then mixed, so similar addresses land far apart.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Murmur3 finalizer.
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,42 +1,155 @@
 package com.example.loans.controller;
 
+import com.example.loans.cluster.ClusterClient;
+import com.example.loans.dto.BatchResultDto;
 import com.example.loans.dto.DecisionDto;
+import com.example.loans.dto.HistoryPageDto;
 import com.example.loans.dto.LoanApprovalRequestDto;
+import com.example.loans.dto.PendingPageDto;
 import com.example.loans.dto.ResponseDto;
+import com.example.loans.feed.ChangeEvent;
+import com.example.loans.feed.ChangeFeed;
 import com.example.loans.model.Statistics;
 import com.example.loans.service.LoanService;
+import com.example.loans.service.StatisticsStream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/loans")
 public class LoanController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     @Autowired
     LoanService loanService;
 
+    @Autowired
+    StatisticsStream statisticsStream;
+
     @PostMapping("/approval-request")
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseDto createApprovalRequest(@Validated @RequestBody LoanApprovalRequestDto dto) {
-        loanService.saveApproval(dto);
+    public ResponseDto createApprovalRequest(@Validated @RequestBody LoanApprovalRequestDto dto,
+                                             @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy) {
+        loanService.saveApproval(dto, forwardedBy != null);
         return new ResponseDto("Approval request successfully created for client: " + dto.getCustomerId());
     }
 
+    @PostMapping(value = "/approval-request/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDto createApprovalRequests(@RequestBody List<LoanApprovalRequestDto> dtos,
+                                                 @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return loanService.saveApprovals(dtos, forwardedBy != null);
+    }
+
+    @PostMapping(value = "/approval-request/batch", consumes = APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDto createApprovalRequests(InputStream ndjson,
+                                                 @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy) throws IOException {
+        return loanService.saveApprovals(ndjson, forwardedBy != null);
+    }
+
     @PostMapping("/decision")
     @ResponseStatus(HttpStatus.CREATED)
-    public ResponseDto makeDecision(@Valid @RequestBody DecisionDto dto) {
-        loanService.makeDecision(dto);
+    public ResponseDto makeDecision(@Valid @RequestBody DecisionDto dto,
+                                    @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy) {
+        loanService.makeDecision(dto, forwardedBy != null);
         return new ResponseDto("Loan " + dto.getState() + " for clientId: "  + dto.getCustomerId());
     }
 
+    @PostMapping("/decision/batch")
+    @ResponseStatus(HttpStatus.OK)
+    public BatchResultDto makeDecisions(@RequestBody List<DecisionDto> dtos,
+                                        @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return loanService.makeDecisions(dtos, forwardedBy != null);
+    }
+
     @GetMapping("/statistics")
     @ResponseStatus(HttpStatus.OK)
-    public Statistics getStatistics() {
-        return loanService.getStatistics();
+    public Statistics getStatistics(@RequestParam(required = false) String window,
+                                    @RequestParam(defaultValue = "false") boolean histogram,
+                                    @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return loanService.getStatistics(window, histogram, forwardedBy != null);
+    }
+
+    /**
+     * Loans waiting for the approver's decision, one page in customerId order. Pass {@code next} as {@code after} for the next page.
+     */
+    @GetMapping("/approvers/{approver}/pending")
+    @ResponseStatus(HttpStatus.OK)
+    public PendingPageDto getPendingFor(@PathVariable String approver,
+                                        @RequestParam(required = false) String after,
+                                        @RequestParam(defaultValue = "50") int limit,
+                                        @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return loanService.getPendingFor(approver, after, limit, forwardedBy != null);
+    }
+
+    /**
+     * Completed loans in completion order. Pass {@code next} as {@code cursor} for the next page.
+     */
+    @GetMapping("/history")
+    @ResponseStatus(HttpStatus.OK)
+    public HistoryPageDto getHistory(@RequestParam(required = false) String from,
+                                     @RequestParam(required = false) String to,
+                                     @RequestParam(required = false) String state,
+                                     @RequestParam(required = false) String cursor,
+                                     @RequestParam(defaultValue = "50") int limit,
+                                     @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy) {
+        return loanService.getHistory(from, to, state, cursor, limit, forwardedBy != null);
+    }
+
+    /**
+     * Live statistics of the default period, see {@link StatisticsStream}. Spring MVC streams a server-sent event
+     * {@link Flux} through its own emitter without a timeout, so the stream stays open until the client leaves
+     * while other async requests keep {@code spring.mvc.async.request-timeout}.
+     */
+    @GetMapping(value = "/statistics/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Statistics>> streamStatistics() {
+        return statisticsStream.subscribe();
+    }
+
+    /**
+     * Change feed as server-sent events, one event per batch. Reconnecting browsers resume from Last-Event-ID.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<List<ChangeEvent>>> streamChanges(@RequestParam(defaultValue = "0") long from,
+                                                                  @RequestParam(defaultValue = "100") int batch,
+                                                                  @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) Long lastEventId) {
+        return loanService.streamChanges(lastEventId != null ? lastEventId : from, batch).map(ChangeFeed::toServerSentEvent);
+    }
+
+    /**
+     * Change feed as newline delimited JSON, one event per line. The next batch is read once the previous one is written.
+     */
+    @GetMapping(value = "/changes", produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamChangesAsNdjson(@RequestParam(defaultValue = "0") long from,
+                                                       @RequestParam(defaultValue = "100") int batch) {
+        Flux<List<ChangeEvent>> batches = loanService.streamChanges(from, batch);
+        return out -> {
+            try (Stream<List<ChangeEvent>> stream = batches.toStream(1)) {
+                Iterator<List<ChangeEvent>> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    out.write(loanService.toNdjson(iterator.next()));
+                    out.flush();
+                }
+            }
+        };
     }
 
 }
@@ -0,0 +1,169 @@
+package com.example.loans.controller;
+
+import com.example.loans.cluster.ClusterClient;
+import com.example.loans.dto.DecisionDto;
+import com.example.loans.dto.LoanApprovalRequestDto;
+import com.example.loans.dto.ResponseDto;
+import com.example.loans.feed.ChangeEvent;
+import com.example.loans.feed.ChangeFeed;
+import com.example.loans.model.Statistics;
+import com.example.loans.service.LoanService;
+import com.example.loans.service.StatisticsStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Functional handlers of the reactive mode, same contract as {@link LoanController}.
+ * With the in-memory defaults LoanService and LoanRepository do not wait (CAS updates of in-memory maps,
+ * notifications are queued with SPILL or SHED overflow), so they are called directly on the event loop.
+ * Calls run on the bounded elastic scheduler instead when they may wait, see {@link LoanService#mayBlock()}:
+ * for a peer node in cluster mode, for the journal, for a shard thread of the sharded engine
+ * or for space in the notification queue with BLOCK overflow.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class LoanHandler {
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    StatisticsStream statisticsStream;
+
+    public Mono<ServerResponse> createApprovalRequest(ServerRequest request) {
+        return request.bodyToMono(LoanApprovalRequestDto.class)
+                .doOnNext(loanService::requireValid)
+                .publishOn(serviceScheduler())
+                .doOnNext(dto -> loanService.saveApproval(dto, isFromPeer(request)))
+                .flatMap(dto -> ServerResponse.status(HttpStatus.CREATED)
+                        .bodyValue(new ResponseDto("Approval request successfully created for client: " + dto.getCustomerId())));
+    }
+
+    public Mono<ServerResponse> createApprovalRequests(ServerRequest request) {
+        return request.bodyToFlux(LoanApprovalRequestDto.class)
+                .collectList()
+                .publishOn(serviceScheduler())
+                .map(dtos -> loanService.saveApprovals(dtos, isFromPeer(request)))
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    public Mono<ServerResponse> makeDecision(ServerRequest request) {
+        return request.bodyToMono(DecisionDto.class)
+                .doOnNext(loanService::requireValid)
+                .publishOn(serviceScheduler())
+                .doOnNext(dto -> loanService.makeDecision(dto, isFromPeer(request)))
+                .flatMap(dto -> ServerResponse.status(HttpStatus.CREATED)
+                        .bodyValue(new ResponseDto("Loan " + dto.getState() + " for clientId: " + dto.getCustomerId())));
+    }
+
+    public Mono<ServerResponse> makeDecisions(ServerRequest request) {
+        return request.bodyToFlux(DecisionDto.class)
+                .collectList()
+                .publishOn(serviceScheduler())
+                .map(dtos -> loanService.makeDecisions(dtos, isFromPeer(request)))
+                .flatMap(result -> ServerResponse.ok().bodyValue(result));
+    }
+
+    public Mono<ServerResponse> getStatistics(ServerRequest request) {
+        return Mono.fromSupplier(() -> loanService.getStatistics(request.queryParam("window").orElse(null),
+                Boolean.parseBoolean(request.queryParam("histogram").orElse("false")), isFromPeer(request)))
+                .subscribeOn(serviceScheduler())
+                .flatMap(statistics -> ServerResponse.ok().bodyValue(statistics));
+    }
+
+    public Mono<ServerResponse> getPendingFor(ServerRequest request) {
+        return Mono.fromSupplier(() -> loanService.getPendingFor(request.pathVariable("approver"),
+                request.queryParam("after").orElse(null),
+                intParam(request, "limit", 50), isFromPeer(request)))
+                .subscribeOn(serviceScheduler())
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    public Mono<ServerResponse> getHistory(ServerRequest request) {
+        return Mono.fromSupplier(() -> loanService.getHistory(request.queryParam("from").orElse(null),
+                request.queryParam("to").orElse(null), request.queryParam("state").orElse(null),
+                request.queryParam("cursor").orElse(null),
+                intParam(request, "limit", 50), isFromPeer(request)))
+                .subscribeOn(serviceScheduler())
+                .flatMap(page -> ServerResponse.ok().bodyValue(page));
+    }
+
+    public Mono<ServerResponse> streamStatistics(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(statisticsStream.subscribe(), new ParameterizedTypeReference<ServerSentEvent<Statistics>>() {
+                });
+    }
+
+    public Mono<ServerResponse> streamChanges(ServerRequest request) {
+        // deferred, so that invalid parameters reach the error handling of the routes
+        return Mono.defer(() -> {
+            String lastEventId = request.headers().firstHeader(LoanController.LAST_EVENT_ID_HEADER);
+            long from = lastEventId != null
+                    ? parseLong(LoanController.LAST_EVENT_ID_HEADER, lastEventId)
+                    : longParam(request, "from", 0);
+            return ServerResponse.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(loanService.streamChanges(from, intParam(request, "batch", 100)).map(ChangeFeed::toServerSentEvent),
+                            new ParameterizedTypeReference<ServerSentEvent<List<ChangeEvent>>>() {
+                            });
+        });
+    }
+
+    public Mono<ServerResponse> streamChangesAsNdjson(ServerRequest request) {
+        return Mono.defer(() -> ServerResponse.ok()
+                .contentType(MediaType.valueOf(LoanController.APPLICATION_NDJSON_VALUE))
+                .body(loanService.streamChanges(longParam(request, "from", 0), intParam(request, "batch", 100))
+                        .map(batch -> new String(loanService.toNdjson(batch), StandardCharsets.UTF_8)), String.class));
+    }
+
+    /**
+     * @throws ServerWebInputException mapped to 400 like a type mismatch of a controller parameter
+     */
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        Optional<String> value = request.queryParam(name);
+        if (!value.isPresent()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.get());
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid " + name + ": " + value.get());
+        }
+    }
+
+    private static long longParam(ServerRequest request, String name, long defaultValue) {
+        return request.queryParam(name).map(value -> parseLong(name, value)).orElse(defaultValue);
+    }
+
+    private static long parseLong(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private Scheduler serviceScheduler() {
+        return loanService.mayBlock() ? Schedulers.boundedElastic() : Schedulers.immediate();
+    }
+
+    private static boolean isFromPeer(ServerRequest request) {
+        return request.headers().firstHeader(ClusterClient.FORWARDED_HEADER) != null;
+    }
+}
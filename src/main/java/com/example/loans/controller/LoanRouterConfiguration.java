@@ -0,0 +1,47 @@
+package com.example.loans.controller;
+
+import com.example.loans.exception.ErrorHandlingRouterFunctions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Reactive mode, enabled by the "reactive" profile (spring.main.web-application-type=reactive).
+ * Tomcat stays on the classpath for the servlet mode, so the Reactor Netty server factory is declared explicitly.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class LoanRouterConfiguration {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> loanRoutes(LoanHandler handler, ErrorHandlingRouterFunctions errorHandling) {
+        return route()
+                .path("/api/loans", builder -> builder
+                        .POST("/approval-request", handler::createApprovalRequest)
+                        .POST("/approval-request/batch", contentType(APPLICATION_JSON), handler::createApprovalRequests)
+                        .POST("/decision", handler::makeDecision)
+                        .POST("/decision/batch", handler::makeDecisions)
+                        .GET("/statistics", handler::getStatistics)
+                        .GET("/approvers/{approver}/pending", handler::getPendingFor)
+                        .GET("/history", handler::getHistory)
+                        .GET("/statistics/stream", handler::streamStatistics)
+                        .GET("/changes", accept(MediaType.valueOf(LoanController.APPLICATION_NDJSON_VALUE)), handler::streamChangesAsNdjson)
+                        .GET("/changes", handler::streamChanges))
+                .onError(Throwable.class, errorHandling::handle)
+                .build();
+    }
+}
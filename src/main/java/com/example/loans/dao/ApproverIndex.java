@@ -0,0 +1,75 @@
+package com.example.loans.dao;
+
+import com.example.loans.model.LoanRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Pending loans by approver, each approver's loans ordered by customer code, which is also customerId order.
+ * Loans enter when saved as pending and leave when the approver decides or the loan completes.
+ * <p>
+ * Updates race with decisions, so an entry may outlive the work it stands for; pages check every loan
+ * and drop stale entries as they pass them. A page costs a skip list seek plus its own size.
+ * An approver's map is removed with its last loan, under the same map bin lock that adds to it.
+ */
+public class ApproverIndex {
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Long, LoanRecord>> byApprover = new ConcurrentHashMap<>();
+
+    public void add(LoanRecord loanRecord) {
+        for (String approver : loanRecord.getApprovers()) {
+            byApprover.compute(approver, (name, loans) -> {
+                ConcurrentSkipListMap<Long, LoanRecord> approverLoans = loans == null ? new ConcurrentSkipListMap<>() : loans;
+                approverLoans.put(loanRecord.getCustomerCode(), loanRecord);
+                return approverLoans;
+            });
+        }
+    }
+
+    public void remove(String approver, LoanRecord loanRecord) {
+        byApprover.computeIfPresent(approver, (name, loans) -> {
+            loans.remove(loanRecord.getCustomerCode(), loanRecord);
+            return loans.isEmpty() ? null : loans;
+        });
+    }
+
+    public void removeAll(LoanRecord loanRecord) {
+        for (String approver : loanRecord.getApprovers()) {
+            remove(approver, loanRecord);
+        }
+    }
+
+    /**
+     * @param approver
+     * @param afterCustomerCode exclusive start, 0 for the first page
+     * @param limit
+     * @return loans still waiting for the approver's decision, in customer code order
+     */
+    public List<LoanRecord> page(String approver, long afterCustomerCode, int limit) {
+        ConcurrentSkipListMap<Long, LoanRecord> loans = byApprover.get(approver);
+        if (loans == null) {
+            return Collections.emptyList();
+        }
+        List<LoanRecord> page = new ArrayList<>(Math.min(limit, 64));
+        for (Map.Entry<Long, LoanRecord> entry : loans.tailMap(afterCustomerCode, false).entrySet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (entry.getValue().isPendingFor(approver)) {
+                page.add(entry.getValue());
+            } else {
+                remove(approver, entry.getValue());
+            }
+        }
+        return page;
+    }
+
+    int approverCount() {
+        return byApprover.size();
+    }
+}
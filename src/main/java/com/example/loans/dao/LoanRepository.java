@@ -1,22 +1,35 @@
 package com.example.loans.dao;
 
 import com.example.loans.exception.BusinessRuleException;
+import com.example.loans.feed.ChangeFeed;
+import com.example.loans.finance.AmountDistribution;
+import com.example.loans.finance.AmountSummaryStatistics;
+import com.example.loans.finance.SlidingWindowStatistics;
+import com.example.loans.journal.Journal;
+import com.example.loans.journal.LoanEvents;
+import com.example.loans.metrics.LoanMetrics;
 import com.example.loans.model.*;
-import com.example.loans.task.NotifyCustomerTask;
+import com.example.loans.notification.NotificationPipeline;
+import com.example.loans.notification.OverflowPolicy;
+import com.example.loans.snapshot.*;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 import static com.example.loans.model.DecisionState.*;
 
@@ -24,16 +37,217 @@ import static com.example.loans.model.DecisionState.*;
 @Component
 public class LoanRepository {
 
-    final ConcurrentSkipListMap<EventKey, UUID> events;
-    final ConcurrentHashMap<ApprovalRequest, ConcurrentHashMap<String, Decision>> storage;
-    private final ThreadPoolTaskScheduler threadPoolTaskScheduler;
+    final LongConcurrentHashMap<LoanRecord> pendingLoans;
+    final ConcurrentHashMap<UUID, LoanRecord> loanHistory;
+    final ConcurrentSkipListMap<EventKey, LoanRecord> completions;
+    final SlidingWindowStatistics contractStatistics;
+    final ApproverIndex approverIndex = new ApproverIndex();
+    private final LongAdder contractsSent = new LongAdder();
+    private final NotificationPipeline notificationPipeline;
+    private Journal journal;
+    private SnapshotStore snapshotStore;
+    private LoanMetrics metrics = LoanMetrics.NOOP;
+    private LoanIdGenerator idGenerator = new LoanIdGenerator(0);
+    private ShardedLoanEngine engine;
+    private ChangeFeed changeFeed;
 
-    public LoanRepository(ConcurrentSkipListMap<EventKey, UUID> events,
-                          ConcurrentHashMap<ApprovalRequest, ConcurrentHashMap<String, Decision>> storage,
-                          ThreadPoolTaskScheduler threadPoolTaskScheduler) {
-        this.events = events;
-        this.storage = storage;
-        this.threadPoolTaskScheduler = threadPoolTaskScheduler;
+    public LoanRepository(LongConcurrentHashMap<LoanRecord> pendingLoans,
+                          ConcurrentHashMap<UUID, LoanRecord> loanHistory,
+                          ConcurrentSkipListMap<EventKey, LoanRecord> completions,
+                          SlidingWindowStatistics contractStatistics,
+                          NotificationPipeline notificationPipeline) {
+        this.pendingLoans = pendingLoans;
+        this.loanHistory = loanHistory;
+        this.completions = completions;
+        this.contractStatistics = contractStatistics;
+        this.notificationPipeline = notificationPipeline;
+    }
+
+    /**
+     * Enables write-through journaling, see {@code app.journal.enabled}.
+     *
+     * @param journal
+     */
+    @Autowired(required = false)
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Source of loan ids and event key sequences, node 0 unless set.
+     *
+     * @param idGenerator
+     */
+    @Autowired
+    public void setIdGenerator(LoanIdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Runs writes on the shard owning the customer instead of the calling thread, see {@code app.repository.engine}.
+     *
+     * @param engine
+     */
+    @Autowired(required = false)
+    public void setEngine(ShardedLoanEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Timers and counters of the public operations, no-op unless set.
+     *
+     * @param metrics
+     */
+    @Autowired(required = false)
+    public void setMetrics(LoanMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Publishes created, decided and completed loans, see {@code app.feed.enabled}. Restored loans are not published.
+     *
+     * @param changeFeed
+     */
+    @Autowired(required = false)
+    public void setChangeFeed(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * Enables restoring from snapshots and {@link #snapshot()}, see {@code app.snapshot.enabled}.
+     *
+     * @param snapshotStore
+     */
+    @Autowired(required = false)
+    public void setSnapshotStore(SnapshotStore snapshotStore) {
+        this.snapshotStore = snapshotStore;
+    }
+
+    /**
+     * Rebuilds pending loans, history and the statistics window before the repository takes requests:
+     * bulk-loads the newest snapshot, then replays the journal written after it. Customers are not notified again.
+     * <p>
+     * A snapshot is taken while writers run, so the journal tail may repeat changes the snapshot already holds.
+     * Replay skips loans already in history and re-applying a decision is idempotent.
+     * <p>
+     * Completed loans keep the {@link EventKey} they had before the restart, so history cursors handed out earlier
+     * still resume at the same place. Only a loan the snapshot caught completing, without a journal to replay
+     * its decision, is keyed by the snapshot time.
+     */
+    @PostConstruct
+    public void restore() {
+        List<LoanRecord> completedWhilePending = new ArrayList<>();
+        Optional<Path> snapshot = snapshotStore == null ? Optional.empty() : snapshotStore.latest();
+        SnapshotHeader header = snapshot.isPresent() ? restoreSnapshot(snapshot.get(), completedWhilePending) : null;
+        if (journal != null) {
+            replayJournal(header == null ? 0 : header.getJournalOffset());
+        }
+        for (LoanRecord loanRecord : completedWhilePending) {
+            if (!loanHistory.containsKey(loanRecord.getUuid())) {
+                complete(loanRecord, new EventKey(header.getCreatedMillis(), idGenerator.nextSequence()), contractStatistics);
+            }
+        }
+    }
+
+    private void replayJournal(long journalOffset) {
+        long start = System.nanoTime();
+        LoanEvents.Handler replay = new LoanEvents.Handler() {
+            @Override
+            public void pending(LoanApprovalRequest request, long epochMillis) {
+                if (!loanHistory.containsKey(request.getUuid())) {
+                    publishPending(LoanRecord.pending(request));
+                }
+            }
+
+            @Override
+            public void decision(Decision decision, long epochMillis, long completionSequence, boolean completed) {
+                LoanRecord loanRecord = pendingLoans.get(CustomerId.encode(decision.getCustomerId()));
+                if (loanRecord == null) {
+                    return;
+                }
+                LoanRecord.Outcome outcome = loanRecord.decide(decision.getApproverUsername(), decision.getState());
+                if (outcome == LoanRecord.Outcome.RECORDED) {
+                    approverIndex.remove(decision.getApproverUsername(), loanRecord);
+                } else if (outcome == LoanRecord.Outcome.APPROVED || outcome == LoanRecord.Outcome.DECLINED
+                        // the snapshot holds the loan pending with every decision, this record completed it
+                        || completed && outcome == LoanRecord.Outcome.FINISHED && !loanHistory.containsKey(loanRecord.getUuid())) {
+                    complete(loanRecord, new EventKey(epochMillis, completionSequence), contractStatistics);
+                }
+            }
+        };
+        long records = journal.open(journalOffset, record -> LoanEvents.read(record, replay));
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Replayed {} journal records in {}ms ({} records/s), {} pending loans",
+                records, millis, records * 1000 / millis, pendingLoans.size());
+    }
+
+    /**
+     * @param completedWhilePending collects loans written as pending that completed while the snapshot was taken
+     */
+    private SnapshotHeader restoreSnapshot(Path file, List<LoanRecord> completedWhilePending) {
+        long start = System.nanoTime();
+        SnapshotReader.Handler handler = new SnapshotReader.Handler() {
+            @Override
+            public void pending(LoanRecord loanRecord) {
+                if (pendingLoans.putIfAbsent(loanRecord.getCustomerCode(), loanRecord) == null) {
+                    approverIndex.add(loanRecord);
+                }
+                if (loanRecord.getDecisionState() != PENDING) {
+                    completedWhilePending.add(loanRecord);
+                }
+            }
+
+            @Override
+            public void completion(EventKey completion, LoanRecord loanRecord) {
+                UUID uuid = loanRecord.getUuid();
+                LoanRecord pending = pendingLoans.get(loanRecord.getCustomerCode());
+                if (pending != null && pending.getUuid().equals(uuid)) {
+                    pendingLoans.remove(loanRecord.getCustomerCode(), pending);
+                    approverIndex.removeAll(pending);
+                }
+                if (loanHistory.putIfAbsent(uuid, loanRecord) == null) {
+                    completions.put(completion, loanRecord);
+                    if (loanRecord.getDecisionState() == APPROVED) {
+                        contractStatistics.record(loanRecord.getLoanAmountCents(), completion.getEpochMillis());
+                    }
+                }
+            }
+        };
+
+        try {
+            SnapshotHeader header = new SnapshotReader().read(file, handler);
+            log.info("Restored snapshot {} in {}ms, {} pending loans, {} finished loans",
+                    file, (System.nanoTime() - start) / 1_000_000, pendingLoans.size(), loanHistory.size());
+            return header;
+        } catch (IOException e) {
+            throw new SnapshotException("Cannot restore snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Writes pending loans and finished loans to a new snapshot without stopping writers.
+     * Pending loans go first, so a loan finishing during the snapshot is written at least once.
+     * They are copied one map segment at a time and written after the segment lock is released.
+     * Journal segments covered by the snapshot are deleted afterwards.
+     *
+     * @return number of written loans
+     */
+    public long snapshot() throws IOException {
+        long journalOffset = journal == null ? 0 : journal.currentOffset();
+        SnapshotHeader header = new SnapshotHeader(System.currentTimeMillis(), journalOffset, pendingLoans.size(), completions.size());
+        long records;
+        try (SnapshotWriter writer = snapshotStore.writer(header)) {
+            pendingLoans.forEachSegment(segment -> segment.forEach(writer::pending));
+            for (Map.Entry<EventKey, LoanRecord> completion : completions.entrySet()) {
+                writer.completion(completion.getKey(), completion.getValue());
+            }
+            records = writer.getRecords();
+            writer.commit();
+        }
+        if (journal != null) {
+            journal.deleteSegmentsBefore(journalOffset);
+        }
+        return records;
     }
 
     /**
@@ -42,117 +256,446 @@ public class LoanRepository {
      * @param loanApprovalRequest
      */
     public void saveAsPending(ApprovalRequest loanApprovalRequest) {
-        log.info("Trying to save: {}", loanApprovalRequest);
+        long start = System.nanoTime();
+        try {
+            log.info("Trying to save: {}", loanApprovalRequest);
 
-        UUID uuid = UUID.randomUUID();
-        ZonedDateTime now = ZonedDateTime.now();
+            long now = System.currentTimeMillis();
+            if (execute(CustomerId.encode(loanApprovalRequest.getCustomerId()), window -> insertPending(loanApprovalRequest, now))) {
+                log.info("Successfully added new LoanApprovalRequest: {}", loanApprovalRequest);
+            } else {
+                metrics.duplicate();
+                log.error("Attempt to save duplicate pending LoanApprovalRequest: {}", loanApprovalRequest);
+                throw new BusinessRuleException("Attempt to save duplicate pending LoanApprovalRequest: " + loanApprovalRequest);
+            }
+        } finally {
+            metrics.saveAsPending(System.nanoTime() - start);
+        }
+    }
 
-        UUID resultUuid = events.putIfAbsent(new EventKey(now, uuid), uuid);
+    /**
+     * Saves a batch of new LoanApprovalRequests in one pass. Duplicates do not fail the batch.
+     *
+     * @param loanApprovalRequests
+     * @return per request flag, true if saved, false if a pending request for the customer already exists
+     */
+    public boolean[] saveAllAsPending(List<? extends ApprovalRequest> loanApprovalRequests) {
+        long now = System.currentTimeMillis();
+        boolean[] saved = new boolean[loanApprovalRequests.size()];
+        int savedCount = 0;
 
-        if (resultUuid != null) {
-            log.debug("Failed events.putIfAbsent({}}, {}})", now.toInstant().toEpochMilli(), uuid);
+        if (engine == null) {
+            savedCount = insertPending(loanApprovalRequests, indexes(saved.length), saved, now);
+        } else {
+            List<List<Integer>> byShard = byShard(saved.length, i -> loanApprovalRequests.get(i).getCustomerId());
+            List<CompletableFuture<Integer>> counts = new ArrayList<>();
+            for (int shard = 0; shard < byShard.size(); shard++) {
+                List<Integer> items = byShard.get(shard);
+                if (!items.isEmpty()) {
+                    counts.add(engine.submitTo(shard, s -> insertPending(loanApprovalRequests, items, saved, now)));
+                }
+            }
+            for (CompletableFuture<Integer> count : counts) {
+                savedCount += join(count);
+            }
         }
-        loanApprovalRequest.setUuid(uuid);
+        log.info("Saved {} of {} LoanApprovalRequests in batch", savedCount, saved.length);
+        return saved;
+    }
 
-        if (storage.containsKey(loanApprovalRequest)) {
-            log.error("Attempt to save duplicate pending LoanApprovalRequest: {}", loanApprovalRequest);
-            throw new BusinessRuleException("Attempt to save duplicate pending LoanApprovalRequest: " + loanApprovalRequest);
+    private int insertPending(List<? extends ApprovalRequest> loanApprovalRequests, List<Integer> items, boolean[] saved, long now) {
+        int savedCount = 0;
+        for (int i : items) {
+            saved[i] = insertPending(loanApprovalRequests.get(i), now);
+            if (saved[i]) {
+                savedCount++;
+            } else {
+                metrics.duplicate();
+            }
         }
+        return savedCount;
+    }
 
-        ConcurrentHashMap<String, Decision> putResult = storage.putIfAbsent(loanApprovalRequest, getDecisionMap(loanApprovalRequest));
+    private boolean insertPending(ApprovalRequest loanApprovalRequest, long now) {
+        UUID uuid = idGenerator.next(now);
+        loanApprovalRequest.setUuid(uuid);
+        LoanRecord loanRecord = LoanRecord.pending(loanApprovalRequest);
 
-        if (putResult == null) {
-            log.info("Successfully added new LoanApprovalRequest: {}", loanApprovalRequest);
-        } else {
-            log.error("Save failed. Duplicate LoanApprovalRequest: {}", loanApprovalRequest);
-            throw new BusinessRuleException("Fail to add LoanApprovalRequest. Duplicate LoanApprovalRequest: " + loanApprovalRequest);
+        boolean saved = journal == null
+                ? publishPending(loanRecord)
+                : journal.append(loanRecord.getCustomerCode(), LoanEvents.pending(loanRecord, now), () -> publishPending(loanRecord));
+        if (saved && changeFeed != null) {
+            changeFeed.created(loanRecord, now);
         }
+        return saved;
     }
 
-    private ConcurrentHashMap<String, Decision> getDecisionMap(ApprovalRequest loanApprovalRequest) {
-        ConcurrentHashMap<String, Decision> decisions = new ConcurrentHashMap<>();
+    private boolean publishPending(LoanRecord loanRecord) {
+        if (pendingLoans.putIfAbsent(loanRecord.getCustomerCode(), loanRecord) != null) {
+            return false;
+        }
+        approverIndex.add(loanRecord);
+        return true;
+    }
 
-        for (Approver approver : loanApprovalRequest.getApprovers()) {
-            Decision pendingDecision = Decision.builder()
-                    .customerId(loanApprovalRequest.getCustomerId())
-                    .approverUsername(approver.getName())
-                    .state(PENDING)
-                    .build();
-            decisions.put(approver.getName(), pendingDecision);
+    /**
+     * Applies the decision to the loan. With the journal enabled only accepted decisions are journaled,
+     * in the order in which they were applied to the loan. The record carries the completion key, flagged if the decision
+     * completed the loan, so replay restores the same key.
+     */
+    private LoanRecord.Outcome decide(LoanRecord loanRecord, Decision decision, EventKey completion) {
+        if (journal == null) {
+            return loanRecord.decide(decision.getApproverUsername(), decision.getState());
         }
-        return decisions;
+        LoanRecord.Outcome[] outcome = new LoanRecord.Outcome[1];
+        ByteBuffer record = LoanEvents.decision(loanRecord.getCustomerCode(), decision.getApproverUsername(), decision.getState(),
+                completion.getEpochMillis(), completion.getSequence());
+        journal.append(loanRecord.getCustomerCode(), record, () -> {
+            outcome[0] = loanRecord.decide(decision.getApproverUsername(), decision.getState());
+            if (outcome[0] == LoanRecord.Outcome.APPROVED || outcome[0] == LoanRecord.Outcome.DECLINED) {
+                LoanEvents.completed(record);
+            }
+            return outcome[0] == LoanRecord.Outcome.RECORDED
+                    || outcome[0] == LoanRecord.Outcome.APPROVED
+                    || outcome[0] == LoanRecord.Outcome.DECLINED;
+        });
+        return outcome[0];
     }
 
     /**
-     * Saves decision only if related LoanApprovalRequest with correct customerId exists in storage.
+     * Saves decision only if related pending loan with correct customerId exists in storage
+     * and the decision comes from one of its approvers.
      *
      * @param decision
      * @return
      */
     public void save(final Decision decision) {
-        String msg;
+        long start = System.nanoTime();
+        try {
+            String msg;
+
+            if (decision.getState() == PENDING) {
+                msg = "PENDING decisions cannot be saved";
+                log.error(msg);
+                throw new BusinessRuleException(msg);
+            }
+            String customerId = decision.getCustomerId();
+            long now = System.currentTimeMillis();
+            LoanRecord loanRecord = pendingLoans.get(CustomerId.encode(customerId));
+            LoanRecord.Outcome outcome = loanRecord == null
+                    ? LoanRecord.Outcome.FINISHED
+                    : execute(loanRecord.getCustomerCode(), window -> decideAndComplete(loanRecord, decision, now, window));
+            metrics.decision(outcome);
+
+            switch (outcome) {
+                case FINISHED:
+                    msg = "Decision cannot be saved. There is no related ApprovalRequest with customerId: " + customerId;
+                    log.error(msg);
+                    throw new BusinessRuleException(msg);
+                case UNKNOWN_APPROVER:
+                    msg = "Decision cannot be saved. " + decision.getApproverUsername() + " is not an approver for customerId: " + customerId;
+                    log.error(msg);
+                    throw new BusinessRuleException(msg);
+                case APPROVED:
+                case DECLINED:
+                    notificationPipeline.submit(loanRecord);
+                    break;
+                default:
+                    break;
+            }
+            log.info("Decision is saved");
+        } finally {
+            metrics.save(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Saves many decisions at once. Decisions are grouped by customer, so every pending loan is looked up once
+     * and completed at most once. Notifications of all loans completed by the batch are submitted together.
+     * Rejected decisions are reported in the result and do not stop the rest of the batch.
+     *
+     * @param decisions APPROVED or DECLINED decisions
+     * @return outcome of every decision, in the order of the list. FINISHED means there is no pending loan
+     */
+    public LoanRecord.Outcome[] saveAll(List<Decision> decisions) {
+        for (Decision decision : decisions) {
+            if (decision.getState() == PENDING) {
+                throw new BusinessRuleException("PENDING decisions cannot be saved");
+            }
+        }
+        Map<String, List<Integer>> byCustomer = new LinkedHashMap<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            byCustomer.computeIfAbsent(decisions.get(i).getCustomerId(), customerId -> new ArrayList<>()).add(i);
+        }
+
+        long now = System.currentTimeMillis();
+        LoanRecord.Outcome[] outcomes = new LoanRecord.Outcome[decisions.size()];
+        List<LoanRecord> completed = new ArrayList<>();
+        if (engine == null) {
+            completed = decideAll(byCustomer.entrySet(), decisions, outcomes, now, contractStatistics);
+        } else {
+            List<Map.Entry<String, List<Integer>>> customers = new ArrayList<>(byCustomer.entrySet());
+            List<List<Integer>> byShard = byShard(customers.size(), i -> customers.get(i).getKey());
+            List<CompletableFuture<List<LoanRecord>>> results = new ArrayList<>();
+            for (int shard = 0; shard < byShard.size(); shard++) {
+                List<Map.Entry<String, List<Integer>>> shardCustomers = new ArrayList<>();
+                byShard.get(shard).forEach(i -> shardCustomers.add(customers.get(i)));
+                if (!shardCustomers.isEmpty()) {
+                    results.add(engine.submitTo(shard, s -> decideAll(shardCustomers, decisions, outcomes, now, s.getStatistics())));
+                }
+            }
+            for (CompletableFuture<List<LoanRecord>> result : results) {
+                completed.addAll(join(result));
+            }
+        }
 
-        if (decision.getState() == PENDING) {
-            msg = "PENDING decisions cannot be saved";
-            log.error(msg);
-            throw new BusinessRuleException(msg);
+        if (!completed.isEmpty()) {
+            notificationPipeline.submitAll(completed);
         }
-        String customerId = decision.getCustomerId();
-        ApprovalRequest lookupKey = LoanApprovalRequest.builder()
-                .customerId(customerId)
-                .decisionState(PENDING)
-                .build();
+        log.info("Saved batch of {} decisions, {} loans completed", decisions.size(), completed.size());
+        return outcomes;
+    }
 
-        ConcurrentHashMap<String, Decision> allDecisions = storage.get(lookupKey);
+    private List<LoanRecord> decideAll(Collection<Map.Entry<String, List<Integer>>> customers, List<Decision> decisions,
+                                       LoanRecord.Outcome[] outcomes, long now, SlidingWindowStatistics window) {
+        List<LoanRecord> completed = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> customer : customers) {
+            LoanRecord loanRecord = pendingLoans.get(CustomerId.encode(customer.getKey()));
+            for (int i : customer.getValue()) {
+                outcomes[i] = loanRecord == null
+                        ? LoanRecord.Outcome.FINISHED
+                        : decideAndComplete(loanRecord, decisions.get(i), now, window);
+                metrics.decision(outcomes[i]);
+                if (outcomes[i] == LoanRecord.Outcome.APPROVED || outcomes[i] == LoanRecord.Outcome.DECLINED) {
+                    completed.add(loanRecord);
+                }
+            }
+        }
+        return completed;
+    }
 
-        if (allDecisions == null) {
-            msg = "Decision cannot be saved. There is no related ApprovalRequest with customerId: " + customerId;
-            log.error(msg);
-            throw new BusinessRuleException(msg);
+    private LoanRecord.Outcome decideAndComplete(LoanRecord loanRecord, Decision decision, long now, SlidingWindowStatistics window) {
+        EventKey completion = new EventKey(now, idGenerator.nextSequence());
+        LoanRecord.Outcome outcome = decide(loanRecord, decision, completion);
+        boolean completed = outcome == LoanRecord.Outcome.APPROVED || outcome == LoanRecord.Outcome.DECLINED;
+        if (outcome == LoanRecord.Outcome.RECORDED) {
+            approverIndex.remove(decision.getApproverUsername(), loanRecord);
         }
-        allDecisions.put(decision.getApproverUsername(), decision);
-        processDecisions(lookupKey, allDecisions);
-        log.info("Decision is saved");
+        if (changeFeed != null && (completed || outcome == LoanRecord.Outcome.RECORDED)) {
+            changeFeed.decided(loanRecord, decision, now);
+        }
+        if (completed) {
+            complete(loanRecord, completion, window);
+            if (changeFeed != null) {
+                changeFeed.completed(loanRecord, now);
+            }
+        }
+        return outcome;
     }
 
     /**
-     * Checks if all decisions are of the same DecisionState Type.
-     * If true then update DecisionState of LoanApprovalRequest and run NotifyCustomerTask
-     * @param approvalRequest
-     * @param allDecisions
+     * Moves a loan whose decisions reached quorum from pending to history. The caller notifies the customer.
+     * Approved loans are recorded in the statistics window as contracts sent to the customer.
+     * Called once per loan, by the decision whose CAS completed it, so concurrent decisions of other approvers
+     * never complete or notify it twice. No lock is taken: loans of different customers share no state here.
+     * The loan enters history before it leaves the pending loans, so readers always find it in one of them.
+     * @param loanRecord
+     * @param completion key in the completion index, epoch millis of the completion and a sequence number
+     * @param window statistics window of the shard running the decision, the shared one without the sharded engine
      */
-    private void processDecisions(ApprovalRequest approvalRequest, ConcurrentHashMap<String, Decision> allDecisions) {
-        boolean allApproved = allMatchState(allDecisions, APPROVED);
-        boolean allDeclined = allMatchState(allDecisions, DECLINED);
+    private void complete(LoanRecord loanRecord, EventKey completion, SlidingWindowStatistics window) {
+        DecisionState decisionState = loanRecord.getDecisionState();
+        log.info("The decisions is {} by everyone", decisionState.name());
 
-        if (allApproved || allDeclined) {
-            log.info("The decisions is {} by everyone", allApproved ? APPROVED.name() : DECLINED.name());
-            if (allApproved) {
-                approvalRequest.setDecisionState(APPROVED);
-            } else {
-                approvalRequest.setDecisionState(DECLINED);
-            }
+        loanHistory.put(loanRecord.getUuid(), loanRecord);
+        completions.put(completion, loanRecord);
+        pendingLoans.remove(loanRecord.getCustomerCode(), loanRecord);
+        approverIndex.removeAll(loanRecord);
 
-            storage.put(approvalRequest, allDecisions);
-            threadPoolTaskScheduler.execute(new NotifyCustomerTask(approvalRequest, allDecisions));
+        if (decisionState == APPROVED) {
+            window.record(loanRecord.getLoanAmountCents(), completion.getEpochMillis());
+            contractsSent.increment();
         }
     }
 
-    private boolean allMatchState(ConcurrentHashMap<String, Decision> allDecisions, DecisionState decisionState) {
-        return allDecisions.values().stream().allMatch(v -> v.getState() == decisionState);
+    /**
+     * Loans waiting for the approver's decision, one page in customerId order. Reads the approver's index only,
+     * so the cost follows the approver's backlog and the page size, not the number of stored loans.
+     *
+     * @param approver
+     * @param afterCustomerId customerId of the last loan of the previous page, null for the first page
+     * @param limit
+     * @return
+     */
+    public List<LoanRecord> getPendingFor(String approver, String afterCustomerId, int limit) {
+        return approverIndex.page(approver, afterCustomerId == null ? 0 : CustomerId.encode(afterCustomerId), limit);
+    }
+
+    /**
+     * Completed loans in completion order. A page seeks the completion index and reads on from there,
+     * so deep pages cost the same as the first one; loans of another state are skipped on the way.
+     * Loans removed by compaction are no longer listed, see {@code app.compaction.retention}.
+     *
+     * @param from inclusive
+     * @param to exclusive
+     * @param state APPROVED or DECLINED, null for both
+     * @param limit
+     * @return
+     */
+    public List<Map.Entry<EventKey, LoanRecord>> getCompletions(EventKey from, EventKey to, DecisionState state, int limit) {
+        List<Map.Entry<EventKey, LoanRecord>> page = new ArrayList<>(Math.min(limit, 64));
+        if (from.compareTo(to) >= 0) {
+            return page;
+        }
+        for (Map.Entry<EventKey, LoanRecord> completion : completions.subMap(from, true, to, false).entrySet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (state == null || completion.getValue().getDecisionState() == state) {
+                page.add(completion);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * True if writes may wait: for the journal (a COMMIT append waits for fsync), for a shard thread
+     * of the sharded engine, or for space in the notification queue with BLOCK overflow.
+     */
+    public boolean mayBlock() {
+        return journal != null || engine != null || notificationPipeline.getOverflowPolicy() == OverflowPolicy.BLOCK;
+    }
+
+    /**
+     * Number of approved loans completed since startup, replayed ones included. Cheap to read, it only tells
+     * whether statistics changed, see {@link com.example.loans.service.StatisticsStream}.
+     */
+    public long getContractsSent() {
+        return contractsSent.sum();
     }
 
+    /**
+     * Statistics of contracts sent to customers during the period. Merges pre-aggregated
+     * second, minute and hour buckets, so the cost depends neither on the number of stored loans nor much on the period.
+     * With the sharded engine every shard snapshots its own window and the results are merged.
+     *
+     * @param period
+     * @return
+     */
     public Statistics getStatistics(Duration period) {
-        log.info("Getting statistics for period {}sec", period.getSeconds());
-        Set<UUID> eventIds = new HashSet<>(events.tailMap(new EventKey(ZonedDateTime.now().minus(period))).values());
+        return getStatistics(period, false);
+    }
+
+    /**
+     * With {@code histogram} also percentiles and the distribution, merged from the per-cent histograms of the buckets.
+     * Shard windows are then read on the calling thread, their buckets are locked for reading anyway,
+     * so the per-cent counts are merged into one distribution instead of one per shard.
+     *
+     * @param period
+     * @param histogram
+     * @return
+     * @throws BusinessRuleException if histograms are off, see {@code app.statistics.histogram}
+     */
+    public Statistics getStatistics(Duration period, boolean histogram) {
+        long start = System.nanoTime();
+        try {
+            log.info("Getting statistics for period {}sec", period.getSeconds());
+            if (histogram && !contractStatistics.hasHistograms()) {
+                throw new BusinessRuleException("Amount histograms are disabled, see app.statistics.histogram");
+            }
+            AmountDistribution distribution = histogram ? new AmountDistribution() : null;
+            AmountSummaryStatistics summary = contractStatistics.snapshot(period, distribution);
+            if (engine != null && histogram) {
+                for (int shard = 0; shard < engine.getShardCount(); shard++) {
+                    summary.merge(engine.getShard(shard).getStatistics().snapshot(period, distribution));
+                }
+            } else if (engine != null) {
+                for (CompletableFuture<AmountSummaryStatistics> shard : engine.submitToAll(s -> s.getStatistics().snapshot(period))) {
+                    summary.merge(join(shard));
+                }
+            }
+            Statistics statistics = histogram ? Statistics.of(summary, distribution) : Statistics.of(summary);
+            log.info("Statistics: {}", statistics);
+            return statistics;
+        } finally {
+            metrics.getStatistics(System.nanoTime() - start);
+        }
+    }
 
-        List<BigDecimal> amounts = storage.keySet().stream()
-                .filter(storageKey -> eventIds.contains(storageKey.getUuid()))
-                .map(ApprovalRequest::getLoanAmount)
-                .collect(Collectors.toList());
+    /**
+     * Longest period {@link #getStatistics(Duration)} can cover.
+     */
+    public Duration getStatisticsWindow() {
+        return contractStatistics.getWindow();
+    }
 
-        Statistics statistics = Statistics.calculate(amounts);
-        log.info("Statistics: {}", statistics.toString());
-        return statistics;
+    /**
+     * Runs the command on the shard owning the customer and waits for it, or on the calling thread
+     * without the sharded engine.
+     *
+     * @param customerCode
+     * @param command gets the statistics window approved loans are recorded in
+     * @return
+     */
+    private <T> T execute(long customerCode, Function<SlidingWindowStatistics, T> command) {
+        if (engine == null) {
+            return command.apply(contractStatistics);
+        }
+        return join(engine.submit(customerCode, shard -> command.apply(shard.getStatistics())));
+    }
+
+    private List<List<Integer>> byShard(int size, Function<Integer, String> customerId) {
+        List<List<Integer>> byShard = new ArrayList<>(engine.getShardCount());
+        for (int shard = 0; shard < engine.getShardCount(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            byShard.get(engine.shardOf(CustomerId.encode(customerId.apply(i)))).add(i);
+        }
+        return byShard;
+    }
+
+    private static List<Integer> indexes(int size) {
+        List<Integer> indexes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes APPROVED/DECLINED loans finished before the cutoff from history.
+     * Walks only the head of the completion index, pending loans are never visited.
+     *
+     * @param cutoff
+     * @return number of removed loans
+     */
+    public int removeFinishedBefore(ZonedDateTime cutoff) {
+        ConcurrentNavigableMap<EventKey, LoanRecord> finished = completions.headMap(EventKey.first(cutoff.toInstant().toEpochMilli()));
+        for (LoanRecord loanRecord : finished.values()) {
+            loanHistory.remove(loanRecord.getUuid());
+        }
+        return removeHead(finished);
+    }
+
+    private int removeHead(ConcurrentNavigableMap<EventKey, ?> head) {
+        int removed = 0;
+        for (Iterator<EventKey> iterator = head.keySet().iterator(); iterator.hasNext(); ) {
+            iterator.next();
+            iterator.remove();
+            removed++;
+        }
+        return removed;
     }
 }
@@ -0,0 +1,352 @@
+package com.example.loans.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent map with primitive long keys. Keys are spread over segments, every segment
+ * is an open-addressing table (linear probing, backward shift deletion) in two flat arrays,
+ * so there are no entry objects and no boxed keys.
+ * Reads are optimistic and lock free unless they overlap with a write to the same segment.
+ * Key 0 is reserved as the empty slot marker.
+ *
+ * @param <V> value type
+ */
+public class LongConcurrentHashMap<V> {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+
+    public LongConcurrentHashMap() {
+        this(64, 1024);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LongConcurrentHashMap(int concurrencyLevel, int initialCapacity) {
+        int segmentCount = tableSizeFor(Math.max(1, concurrencyLevel));
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        int segmentCapacity = tableSizeFor((int) (Math.max(1, initialCapacity / segmentCount) / LOAD_FACTOR) + 1);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    public V get(long key) {
+        checkKey(key);
+        long hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public V put(long key, V value) {
+        checkKey(key);
+        long hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, false);
+    }
+
+    public V putIfAbsent(long key, V value) {
+        checkKey(key);
+        long hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+
+    public V remove(long key) {
+        checkKey(key);
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, hash, null);
+    }
+
+    /**
+     * Removes the entry only if it is currently mapped to the given value (identity comparison).
+     *
+     * @param key
+     * @param value
+     * @return true if removed
+     */
+    public boolean remove(long key, V value) {
+        checkKey(key);
+        long hash = hash(key);
+        return value != null && segmentFor(hash).remove(key, hash, value) != null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Visits every entry, one segment at a time under its read lock.
+     * Writes to the visited segment wait, the others proceed.
+     *
+     * @param action
+     */
+    public void forEach(LongObjConsumer<? super V> action) {
+        for (Segment<V> segment : segments) {
+            segment.forEach(action);
+        }
+    }
+
+    /**
+     * Visits the values one segment at a time. Each segment is copied under its read lock and handed to the action
+     * after the lock is released, so slow actions such as file writes never hold up writers.
+     *
+     * @param action gets the values of one segment, a new list every time
+     */
+    public void forEachSegment(Consumer<List<V>> action) {
+        for (Segment<V> segment : segments) {
+            action.accept(segment.values());
+        }
+    }
+
+    @FunctionalInterface
+    public interface LongObjConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /**
+     * Index of the segment holding the key, 0 to {@link #segmentCount()} - 1. Writers partitioned by segment
+     * never share a lock or a table.
+     */
+    int segmentIndex(long key) {
+        checkKey(key);
+        return segmentIndexOf(hash(key));
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[segmentIndexOf(hash)];
+    }
+
+    private int segmentIndexOf(long hash) {
+        return segmentShift == 64 ? 0 : (int) (hash >>> segmentShift);
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table;
+        private volatile int size;
+
+        Segment(int capacity) {
+            table = new Table(Math.max(2, capacity));
+        }
+
+        V get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            V value = find(key, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = find(key, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V find(long key, long hash) {
+            Table t = table;
+            int mask = t.mask;
+            int i = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long k = t.keys[i];
+                if (k == key) {
+                    return (V) t.values[i];
+                }
+                if (k == EMPTY) {
+                    return null;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        V put(long key, long hash, V value, boolean onlyIfAbsent) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int i = (int) hash & t.mask;
+                while (t.keys[i] != EMPTY) {
+                    if (t.keys[i] == key) {
+                        V previous = (V) t.values[i];
+                        if (!onlyIfAbsent) {
+                            t.values[i] = value;
+                        }
+                        return previous;
+                    }
+                    i = (i + 1) & t.mask;
+                }
+                t.keys[i] = key;
+                t.values[i] = value;
+                size = size + 1;
+                if (size > t.keys.length * LOAD_FACTOR) {
+                    table = resize(t);
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        V remove(long key, long hash, V expected) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int i = (int) hash & t.mask;
+                while (t.keys[i] != EMPTY) {
+                    if (t.keys[i] == key) {
+                        V previous = (V) t.values[i];
+                        if (expected != null && previous != expected) {
+                            return null;
+                        }
+                        shiftBack(t, i);
+                        size = size - 1;
+                        return previous;
+                    }
+                    i = (i + 1) & t.mask;
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void clear() {
+            long stamp = lock.writeLock();
+            try {
+                table = new Table(table.keys.length);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<V> values() {
+            long stamp = lock.readLock();
+            try {
+                Table t = table;
+                List<V> values = new ArrayList<>(size);
+                for (int i = 0; i < t.keys.length; i++) {
+                    if (t.keys[i] != EMPTY) {
+                        values.add((V) t.values[i]);
+                    }
+                }
+                return values;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void forEach(LongObjConsumer<? super V> action) {
+            long stamp = lock.readLock();
+            try {
+                Table t = table;
+                for (int i = 0; i < t.keys.length; i++) {
+                    if (t.keys[i] != EMPTY) {
+                        action.accept(t.keys[i], (V) t.values[i]);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Backward shift deletion: moves following entries of the probe chain into the freed slot,
+         * so lookups never need tombstones.
+         */
+        private static void shiftBack(Table t, int free) {
+            int mask = t.mask;
+            int i = (free + 1) & mask;
+            while (t.keys[i] != EMPTY) {
+                int home = (int) hash(t.keys[i]) & mask;
+                boolean stays = free <= i ? (free < home && home <= i) : (free < home || home <= i);
+                if (!stays) {
+                    t.keys[free] = t.keys[i];
+                    t.values[free] = t.values[i];
+                    free = i;
+                }
+                i = (i + 1) & mask;
+            }
+            t.keys[free] = EMPTY;
+            t.values[free] = null;
+        }
+
+        private static Table resize(Table old) {
+            Table t = new Table(old.keys.length << 1);
+            for (int j = 0; j < old.keys.length; j++) {
+                long key = old.keys[j];
+                if (key != EMPTY) {
+                    int i = (int) hash(key) & t.mask;
+                    while (t.keys[i] != EMPTY) {
+                        i = (i + 1) & t.mask;
+                    }
+                    t.keys[i] = key;
+                    t.values[i] = old.values[j];
+                }
+            }
+            return t;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.loans.dao;
+
+import com.example.loans.finance.SlidingWindowStatistics;
+import com.example.loans.model.LoanRecord;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Optional single-writer engine behind {@link LoanRepository}, on with {@code app.repository.engine=sharded}.
+ * Customers are partitioned into shards by the segment of the pending loan map that holds them, and every shard
+ * is owned by one thread that runs the commands of its customers in arrival order. Commands are handed over
+ * through a bounded lock-free ring buffer per shard, callers get a future back.
+ * <p>
+ * Every segment of the pending loan map has a single writer and every shard records approved loans into
+ * its own statistics window, merged on read, so loans of different shards never write the same memory.
+ * A full ring makes callers wait until the shard catches up. Commands that lose the race with {@link #stop()}
+ * fail with an {@link IllegalStateException} instead of being left pending.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.repository.engine", havingValue = "sharded")
+public class ShardedLoanEngine {
+
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    private final LongConcurrentHashMap<LoanRecord> pendingLoans;
+    private final Shard[] shards;
+    private volatile boolean running;
+
+    /**
+     * @param pendingLoans map whose segments are partitioned between the shards
+     * @param contractStatistics shared statistics window, every shard gets a window of the same length and histograms setting
+     * @param shards number of shards, 0 for one per available processor. Capped to the segment count of the map
+     * @param queueCapacity commands per shard ring, rounded up to a power of two
+     */
+    public ShardedLoanEngine(LongConcurrentHashMap<LoanRecord> pendingLoans,
+                             SlidingWindowStatistics contractStatistics,
+                             @Value("${app.repository.shards:0}") int shards,
+                             @Value("${app.repository.queue-capacity:4096}") int queueCapacity) {
+        int count = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        if (count > pendingLoans.segmentCount()) {
+            log.warn("{} shards requested, the pending loan map has only {} segments", count, pendingLoans.segmentCount());
+            count = pendingLoans.segmentCount();
+        }
+        this.pendingLoans = pendingLoans;
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new Shard(i, new SlidingWindowStatistics(contractStatistics.getWindow(), contractStatistics.hasHistograms()), queueCapacity);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        log.info("Starting sharded repository engine, {} shards", shards.length);
+        running = true;
+        for (Shard shard : shards) {
+            shard.thread = new Thread(shard, "loan-shard-" + shard.index);
+            shard.thread.setDaemon(true);
+            shard.thread.start();
+        }
+    }
+
+    /**
+     * Stops accepting commands and lets every shard finish the commands already queued.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            if (shard.thread != null) {
+                LockSupport.unpark(shard.thread);
+                shard.thread.join(TimeUnit.SECONDS.toMillis(10));
+            }
+        }
+        log.info("Sharded repository engine stopped");
+    }
+
+    public int shardOf(long customerCode) {
+        return pendingLoans.segmentIndex(customerCode) % shards.length;
+    }
+
+    /**
+     * Runs the command on the shard owning the customer.
+     *
+     * @param customerCode
+     * @param command
+     * @return result of the command, or its exception
+     */
+    public <T> CompletableFuture<T> submit(long customerCode, Function<Shard, T> command) {
+        return submitTo(shardOf(customerCode), command);
+    }
+
+    /**
+     * Runs the command on the given shard, e.g. a batch of all commands of that shard's customers.
+     *
+     * @param shard shard index, see {@link #shardOf(long)}
+     * @param command
+     * @return result of the command, or its exception
+     */
+    public <T> CompletableFuture<T> submitTo(int shard, Function<Shard, T> command) {
+        return shards[shard].submit(command);
+    }
+
+    /**
+     * Runs the command once on every shard.
+     *
+     * @param command
+     * @return results in shard order
+     */
+    public <T> List<CompletableFuture<T>> submitToAll(Function<Shard, T> command) {
+        List<CompletableFuture<T>> results = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            results.add(shard.submit(command));
+        }
+        return results;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public Shard getShard(int index) {
+        return shards[index];
+    }
+
+    /**
+     * One partition of the customers: its command ring, owner thread and statistics window.
+     */
+    public final class Shard implements Runnable {
+
+        @Getter
+        private final int index;
+        /**
+         * Approved loans completed on this shard, written by the owner thread only.
+         */
+        @Getter
+        private final SlidingWindowStatistics statistics;
+        private final CommandRing ring;
+        private final AtomicLong executed = new AtomicLong();
+        private final AtomicLong fullWaits = new AtomicLong();
+        private volatile boolean sleeping;
+        private Thread thread;
+
+        Shard(int index, SlidingWindowStatistics statistics, int queueCapacity) {
+            this.index = index;
+            this.statistics = statistics;
+            this.ring = new CommandRing(queueCapacity);
+        }
+
+        <T> CompletableFuture<T> submit(Function<Shard, T> command) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            if (!running) {
+                result.completeExceptionally(stopped());
+                return result;
+            }
+            Command task = new Command(() -> {
+                try {
+                    result.complete(command.apply(this));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }, () -> result.completeExceptionally(stopped()));
+            while (!ring.offer(task)) {
+                if (!running) {
+                    task.cancel();
+                    return result;
+                }
+                fullWaits.incrementAndGet();
+                LockSupport.parkNanos(FULL_WAIT_NANOS);
+            }
+            if (!running) {
+                // the owner thread may have drained the ring already, whoever claims the command first wins
+                task.cancel();
+            } else if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+            return result;
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (true) {
+                Command task = ring.poll();
+                if (task != null) {
+                    task.run();
+                    executed.incrementAndGet();
+                    idle = 0;
+                } else if (!running) {
+                    // commands offered while stopping, their callers may not have seen the stop yet
+                    while ((task = ring.poll()) != null) {
+                        task.cancel();
+                    }
+                    return;
+                } else if (++idle < SPINS) {
+                    Thread.yield();
+                } else {
+                    sleeping = true;
+                    if (ring.isEmpty() && running) {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+
+        public int getQueueDepth() {
+            return ring.size();
+        }
+
+        public long getExecuted() {
+            return executed.get();
+        }
+
+        public long getFullWaits() {
+            return fullWaits.get();
+        }
+    }
+
+    private static IllegalStateException stopped() {
+        return new IllegalStateException("Sharded repository engine is stopped");
+    }
+
+    /**
+     * Queued command, either run by the owner thread or cancelled once the engine stopped, never both.
+     */
+    static final class Command {
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final Runnable action;
+        private final Runnable cancellation;
+
+        Command(Runnable action, Runnable cancellation) {
+            this.action = action;
+            this.cancellation = cancellation;
+        }
+
+        void run() {
+            if (claimed.compareAndSet(false, true)) {
+                action.run();
+            }
+        }
+
+        void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                cancellation.run();
+            }
+        }
+    }
+
+    /**
+     * Bounded multi-producer single-consumer ring. Every slot carries a sequence number: producers claim a slot
+     * with one CAS on the tail and publish it by advancing its sequence, the owner thread consumes in order
+     * and hands the slot back one lap later. No locks, no allocation per command.
+     */
+    static final class CommandRing {
+
+        private final Command[] slots;
+        private final AtomicLongArray sequences;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        CommandRing(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            this.slots = new Command[size];
+            this.sequences = new AtomicLongArray(size);
+            this.mask = size - 1;
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(Command task) {
+            while (true) {
+                long position = tail.get();
+                int slot = (int) position & mask;
+                long sequence = sequences.get(slot);
+                if (sequence == position) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        slots[slot] = task;
+                        sequences.set(slot, position + 1);
+                        return true;
+                    }
+                } else if (sequence < position) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Owner thread only.
+         */
+        Command poll() {
+            long position = head;
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) {
+                return null;
+            }
+            Command task = slots[slot];
+            slots[slot] = null;
+            sequences.set(slot, position + slots.length);
+            head = position + 1;
+            return task;
+        }
+
+        boolean isEmpty() {
+            return sequences.get((int) head & mask) != head + 1;
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head);
+        }
+    }
+}
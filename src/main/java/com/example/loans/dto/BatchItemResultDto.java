@@ -0,0 +1,15 @@
+package com.example.loans.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDto {
+    private int index;
+    private String customerId;
+    private BatchItemStatus status;
+    private String message;
+}
@@ -0,0 +1,6 @@
+package com.example.loans.dto;
+
+public enum BatchItemStatus {
+    CREATED, INVALID, DUPLICATE_PENDING,
+    SAVED, COMPLETED, NOT_FOUND, UNKNOWN_APPROVER
+}
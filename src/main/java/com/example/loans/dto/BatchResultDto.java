@@ -0,0 +1,16 @@
+package com.example.loans.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResultDto {
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDto> results;
+}
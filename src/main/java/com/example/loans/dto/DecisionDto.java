@@ -1,5 +1,6 @@
 package com.example.loans.dto;
 
+import com.example.loans.model.Approver;
 import com.example.loans.model.DecisionState;
 import com.example.loans.validation.ValueOfEnum;
 import lombok.AllArgsConstructor;
@@ -10,6 +11,7 @@ import lombok.NoArgsConstructor;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
 
 @Data
 @Builder
@@ -22,6 +24,7 @@ public class DecisionDto {
     String customerId;
 
     @NotEmpty
+    @Size(max = Approver.MAX_NAME_LENGTH)
     String approverUsername;
 
     @ValueOfEnum(enumClass = DecisionState.class)
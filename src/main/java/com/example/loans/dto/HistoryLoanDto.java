@@ -0,0 +1,26 @@
+package com.example.loans.dto;
+
+import com.example.loans.model.DecisionState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Completed loan. {@code cursor} resumes the history right after it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryLoanDto {
+    private String customerId;
+    private BigDecimal loanAmount;
+    private DecisionState state;
+    private ZonedDateTime timestamp;
+    private ZonedDateTime completedAt;
+    private List<String> approvers;
+    private String cursor;
+}
@@ -0,0 +1,18 @@
+package com.example.loans.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of completed loans in completion order. {@code next} is the {@code cursor} of the next page, null on the last one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPageDto {
+    private List<HistoryLoanDto> loans;
+    private String next;
+}
@@ -1,5 +1,6 @@
 package com.example.loans.dto;
 
+import com.example.loans.model.Approver;
 import lombok.*;
 
 import javax.validation.constraints.*;
@@ -17,11 +18,13 @@ public class LoanApprovalRequestDto {
     @Pattern(regexp = "^[a-zA-Z0-9]{2}-[a-zA-Z0-9]{4}-[a-zA-Z0-9]{3}$")
     String customerId;
 
+    @NotNull
     @DecimalMin(value = "0.0", inclusive = false)
     @Digits(integer=3, fraction=2)
     BigDecimal loanAmount;
 
+    @NotNull
     @Size(min=1, max=3)
-    List<String> approvers;
+    List<@NotBlank @Size(max = Approver.MAX_NAME_LENGTH) String> approvers;
 
 }
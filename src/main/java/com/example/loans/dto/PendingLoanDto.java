@@ -0,0 +1,19 @@
+package com.example.loans.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingLoanDto {
+    private String customerId;
+    private BigDecimal loanAmount;
+    private ZonedDateTime timestamp;
+    private List<String> approvers;
+}
@@ -0,0 +1,18 @@
+package com.example.loans.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of an approver's pending loans. {@code next} is the {@code after} value of the next page, null on the last one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingPageDto {
+    private List<PendingLoanDto> loans;
+    private String next;
+}
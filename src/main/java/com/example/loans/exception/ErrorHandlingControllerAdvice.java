@@ -1,5 +1,7 @@
 package com.example.loans.exception;
 
+import com.example.loans.cluster.ClusterException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +21,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ErrorHandlingControllerAdvice extends ResponseEntityExceptionHandler {
 
     @ExceptionHandler(BusinessRuleException.class)
@@ -30,6 +33,15 @@ public class ErrorHandlingControllerAdvice extends ResponseEntityExceptionHandle
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(apiError);
     }
 
+    @ExceptionHandler(ClusterException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiError handleClusterException(ClusterException e) {
+        return ApiError.builder()
+                .message("ClusterException occurred")
+                .errors(e.getMessage())
+                .build();
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiError handleConstraintViolationException(ConstraintViolationException e) {
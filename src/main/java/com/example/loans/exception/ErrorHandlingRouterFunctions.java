@@ -0,0 +1,58 @@
+package com.example.loans.exception;
+
+import com.example.loans.cluster.ClusterException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link ErrorHandlingControllerAdvice} for the functional routes.
+ * Produces the same {@link ApiError} bodies and statuses.
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ErrorHandlingRouterFunctions {
+
+    public Mono<ServerResponse> handle(Throwable e, ServerRequest request) {
+        if (e instanceof BusinessRuleException) {
+            return respond(HttpStatus.BAD_REQUEST, ApiError.builder()
+                    .message("BusinessRuleException occurred")
+                    .errors(e.getMessage())
+                    .build());
+        }
+        if (e instanceof InvalidRequestException) {
+            return respond(HttpStatus.BAD_REQUEST, ApiError.builder()
+                    .message("MethodArgumentNotValidException occurred")
+                    .errors(e.getMessage())
+                    .build());
+        }
+        if (e instanceof ClusterException) {
+            return respond(HttpStatus.SERVICE_UNAVAILABLE, ApiError.builder()
+                    .message("ClusterException occurred")
+                    .errors(e.getMessage())
+                    .build());
+        }
+        if (e instanceof ResponseStatusException) {
+            ResponseStatusException statusException = (ResponseStatusException) e;
+            return respond(statusException.getStatus(), ApiError.builder()
+                    .message("Exception occurred: " + e.getClass())
+                    .errors(statusException.getReason())
+                    .build());
+        }
+        log.error("Request {} {} failed", request.methodName(), request.path(), e);
+        return respond(HttpStatus.INTERNAL_SERVER_ERROR, ApiError.builder()
+                .message("Exception occurred: " + e.getClass())
+                .errors(e.getMessage())
+                .build());
+    }
+
+    private Mono<ServerResponse> respond(HttpStatus status, ApiError apiError) {
+        return ServerResponse.status(status).bodyValue(apiError);
+    }
+}
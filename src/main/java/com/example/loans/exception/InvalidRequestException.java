@@ -0,0 +1,11 @@
+package com.example.loans.exception;
+
+/**
+ * Request body failed bean validation outside of Spring MVC argument resolution.
+ * Errors are "field, message" pairs joined the same way as MethodArgumentNotValidException errors.
+ */
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String errors) {
+        super(errors);
+    }
+}
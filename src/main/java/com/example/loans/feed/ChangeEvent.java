@@ -0,0 +1,60 @@
+package com.example.loans.feed;
+
+import com.example.loans.finance.Amount;
+import com.example.loans.model.DecisionState;
+import com.example.loans.model.LoanRecord;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Entry of the {@link ChangeFeed}. Holds the loan itself and is rendered only when read,
+ * so appending costs one small allocation.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeEvent {
+
+    private final long offset;
+    private final ChangeType type;
+    @JsonIgnore
+    private final long epochMillis;
+    @JsonIgnore
+    private final LoanRecord loan;
+    /**
+     * Approver of a DECIDED event.
+     */
+    private final String approver;
+    /**
+     * Decision of a DECIDED event, final state of a COMPLETED one.
+     */
+    private final DecisionState state;
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(epochMillis);
+    }
+
+    public UUID getLoanId() {
+        return loan.getUuid();
+    }
+
+    public String getCustomerId() {
+        return loan.getCustomerId();
+    }
+
+    public Amount getAmount() {
+        return type == ChangeType.CREATED ? loan.getLoanAmount() : null;
+    }
+
+    public List<String> getApprovers() {
+        return type == ChangeType.CREATED ? Arrays.asList(loan.getApprovers()) : null;
+    }
+}
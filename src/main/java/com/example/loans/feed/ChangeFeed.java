@@ -0,0 +1,184 @@
+package com.example.loans.feed;
+
+import com.example.loans.exception.BusinessRuleException;
+import com.example.loans.model.Decision;
+import com.example.loans.model.DecisionState;
+import com.example.loans.model.LoanRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-process change feed of loan life cycle events, on with {@code app.feed.enabled=true}.
+ * Events get consecutive offsets and are kept in a ring of the last {@code app.feed.capacity} events.
+ * <p>
+ * Writers claim an offset and store the event in its slot, nothing else: readers never block or slow down
+ * the write path, they poll the ring every {@code app.feed.poll-interval} and only read. A reader that falls
+ * more than the capacity behind skips to the oldest event still held, the offsets show the gap.
+ * Offsets start at 0 with every process, the feed is not persisted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.feed.enabled", havingValue = "true")
+public class ChangeFeed {
+
+    public static final int MAX_BATCH = 1000;
+
+    private final AtomicReferenceArray<ChangeEvent> slots;
+    private final int mask;
+    private final AtomicLong nextOffset = new AtomicLong();
+    private final Duration pollInterval;
+
+    /**
+     * @param capacity events kept, rounded up to a power of two
+     * @param pollInterval how often streaming readers look for new events
+     */
+    public ChangeFeed(@Value("${app.feed.capacity:65536}") int capacity,
+                      @Value("${app.feed.poll-interval:50ms}") Duration pollInterval) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.pollInterval = pollInterval;
+        log.info("Change feed of {} events", size);
+    }
+
+    public void created(LoanRecord loan, long epochMillis) {
+        append(ChangeType.CREATED, loan, null, null, epochMillis);
+    }
+
+    public void decided(LoanRecord loan, Decision decision, long epochMillis) {
+        append(ChangeType.DECIDED, loan, decision.getApproverUsername(), decision.getState(), epochMillis);
+    }
+
+    public void completed(LoanRecord loan, long epochMillis) {
+        append(ChangeType.COMPLETED, loan, null, loan.getDecisionState(), epochMillis);
+    }
+
+    private void append(ChangeType type, LoanRecord loan, String approver, DecisionState state, long epochMillis) {
+        long offset = nextOffset.getAndIncrement();
+        slots.lazySet((int) offset & mask, new ChangeEvent(offset, type, epochMillis, loan, approver, state));
+    }
+
+    /**
+     * Offset the next event will get.
+     */
+    public long getNextOffset() {
+        return nextOffset.get();
+    }
+
+    /**
+     * Oldest offset still held.
+     */
+    public long getOldestOffset() {
+        return Math.max(0, nextOffset.get() - slots.length());
+    }
+
+    /**
+     * Reads the events from the offset on, up to the first one not written yet.
+     *
+     * @param from offset of the first event. Older offsets start at the oldest event held, newer ones at the next event
+     * @param max batch size
+     * @return consecutive events unless the reader was overtaken while reading, empty if there are none yet
+     */
+    public List<ChangeEvent> read(long from, int max) {
+        long offset = Math.min(Math.max(from, getOldestOffset()), getNextOffset());
+        List<ChangeEvent> batch = null;
+        while (batch == null || batch.size() < max) {
+            ChangeEvent event = slots.get((int) offset & mask);
+            if (event == null || event.getOffset() < offset) {
+                break;
+            }
+            if (event.getOffset() > offset) {
+                offset = Math.max(offset + 1, getOldestOffset());
+                continue;
+            }
+            if (batch == null) {
+                batch = new ArrayList<>(Math.min(max, 64));
+            }
+            batch.add(event);
+            offset++;
+        }
+        return batch == null ? Collections.emptyList() : batch;
+    }
+
+    /**
+     * Endless stream of batches from the offset on. A batch is read only when the subscriber requests one,
+     * so a slow consumer is simply left behind in the ring.
+     *
+     * @param from offset of the first event, see {@link #read(long, int)}
+     * @param batchSize events per batch, 1 to {@link #MAX_BATCH}
+     * @return
+     * @throws BusinessRuleException if the batch size is out of range
+     */
+    public Flux<List<ChangeEvent>> stream(long from, int batchSize) {
+        if (batchSize < 1 || batchSize > MAX_BATCH) {
+            throw new BusinessRuleException("Batch size must be between 1 and " + MAX_BATCH);
+        }
+        return Flux.create(sink -> {
+            Reader reader = new Reader(sink, from, batchSize);
+            sink.onRequest(requested -> reader.drain());
+            Disposable poll = Schedulers.parallel().schedulePeriodically(reader::drain,
+                    pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+            sink.onDispose(poll);
+        });
+    }
+
+    /**
+     * Server-sent event of a batch. Its id is the offset to resume from, browsers send it back as Last-Event-ID.
+     */
+    public static ServerSentEvent<List<ChangeEvent>> toServerSentEvent(List<ChangeEvent> batch) {
+        return ServerSentEvent.builder(batch)
+                .id(String.valueOf(batch.get(batch.size() - 1).getOffset() + 1))
+                .event("changes")
+                .build();
+    }
+
+    /**
+     * Cursor of one subscriber. Drains run on request and on every poll, one at a time.
+     */
+    private final class Reader {
+        private final FluxSink<List<ChangeEvent>> sink;
+        private final int batchSize;
+        private final AtomicInteger wip = new AtomicInteger();
+        private long offset;
+
+        Reader(FluxSink<List<ChangeEvent>> sink, long from, int batchSize) {
+            this.sink = sink;
+            this.offset = from;
+            this.batchSize = batchSize;
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    List<ChangeEvent> batch = read(offset, batchSize);
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    offset = batch.get(batch.size() - 1).getOffset() + 1;
+                    sink.next(batch);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.loans.feed;
+
+public enum ChangeType {
+    /**
+     * Approval request saved as pending loan.
+     */
+    CREATED,
+    /**
+     * Decision of one approver accepted.
+     */
+    DECIDED,
+    /**
+     * Loan approved or declined by its approvers, the contract is sent to the customer if approved.
+     */
+    COMPLETED
+}
@@ -0,0 +1,72 @@
+package com.example.loans.finance;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money amount backed by a long number of cents.
+ * Rendered as a plain decimal with exactly 2 fraction digits (100.00, 100.50, 123.45).
+ */
+public final class Amount implements Comparable<Amount> {
+
+    public static final Amount ZERO = new Amount(0);
+
+    private final long cents;
+
+    private Amount(long cents) {
+        this.cents = cents;
+    }
+
+    public static Amount ofCents(long cents) {
+        return cents == 0 ? ZERO : new Amount(cents);
+    }
+
+    /**
+     * Amounts with more than 2 fraction digits are rounded half-even; request validation only lets 2 through.
+     *
+     * @param amount
+     * @return
+     */
+    public static Amount of(BigDecimal amount) {
+        return ofCents(toCents(amount));
+    }
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(cents);
+    }
+
+    @Override
+    public int compareTo(Amount o) {
+        return Long.compare(cents, o.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Amount && cents == ((Amount) o).cents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
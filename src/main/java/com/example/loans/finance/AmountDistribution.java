@@ -0,0 +1,68 @@
+package com.example.loans.finance;
+
+/**
+ * Exact distribution of amounts with one counter per cent up to {@link AmountHistogram#MAX_CENTS},
+ * merged from bucket histograms when statistics are read. Percentiles walk the counters once,
+ * no amounts are kept or sorted.
+ */
+public class AmountDistribution {
+
+    private final long[] counts = new long[AmountHistogram.MAX_CENTS + 1];
+    private long total;
+
+    public void add(int cents, long count) {
+        counts[cents] += count;
+        total += count;
+    }
+
+    public AmountDistribution merge(AmountDistribution distribution) {
+        for (int cents = 0; cents < counts.length; cents++) {
+            counts[cents] += distribution.counts[cents];
+        }
+        total += distribution.total;
+        return this;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Nearest-rank percentiles: the smallest amount with at least {@code ceil(perMille * total / 1000)} amounts
+     * at or below it. Zero when empty.
+     *
+     * @param perMille ascending, e.g. 500, 900, 990 for p50, p90, p99
+     * @return cents, one per percentile
+     */
+    public long[] percentiles(int... perMille) {
+        long[] result = new long[perMille.length];
+        if (total == 0) {
+            return result;
+        }
+        int next = 0;
+        long seen = 0;
+        for (int cents = 0; cents < counts.length && next < perMille.length; cents++) {
+            seen += counts[cents];
+            while (next < perMille.length && seen >= Math.max(1, (perMille[next] * total + 999) / 1000)) {
+                result[next++] = cents;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls the consumer with every amount counted at least once, in ascending order.
+     */
+    public void forEach(Consumer consumer) {
+        for (int cents = 0; cents < counts.length; cents++) {
+            if (counts[cents] != 0) {
+                consumer.accept(cents, counts[cents]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(int cents, long count);
+    }
+}
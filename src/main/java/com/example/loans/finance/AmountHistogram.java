@@ -0,0 +1,92 @@
+package com.example.loans.finance;
+
+import java.util.Arrays;
+
+/**
+ * Exact number of amounts per cent, kept sparse: an open addressing table holding only the amounts seen,
+ * so a bucket takes memory in proportion to its distinct amounts, never more than {@link #MAX_CENTS} entries.
+ * Not thread safe, guarded by the bucket it belongs to.
+ */
+public class AmountHistogram {
+
+    /**
+     * Largest amount request validation lets through, 999.99. Larger amounts are counted as this one,
+     * amounts below 0.01 as 0.
+     */
+    public static final int MAX_CENTS = 999_99;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * Cents + 1, 0 marks a free slot.
+     */
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    public void accept(long cents) {
+        int key = (int) Math.max(0, Math.min(MAX_CENTS, cents)) + 1;
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Keeps the table, a bucket reused for the next period usually sees a similar number of distinct amounts.
+     */
+    public void reset() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            size = 0;
+        }
+    }
+
+    public void addTo(AmountDistribution distribution) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                distribution.add(keys[slot] - 1, counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Number of distinct amounts.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.loans.finance;
+
+import lombok.Getter;
+
+import java.util.function.LongConsumer;
+
+/**
+ * {@link java.util.LongSummaryStatistics} style aggregator of amounts in cents.
+ * Primitive fields only, so accepting, merging and resetting never allocate.
+ */
+public class AmountSummaryStatistics implements LongConsumer {
+
+    @Getter
+    private long count;
+    @Getter
+    private long sum;
+    @Getter
+    private long min;
+    @Getter
+    private long max;
+
+    /**
+     * Recreates a summary from its parts, e.g. partial statistics of another node.
+     */
+    public static AmountSummaryStatistics of(long count, long sum, long min, long max) {
+        AmountSummaryStatistics statistics = new AmountSummaryStatistics();
+        if (count > 0) {
+            statistics.count = count;
+            statistics.sum = sum;
+            statistics.min = min;
+            statistics.max = max;
+        }
+        return statistics;
+    }
+
+    @Override
+    public void accept(long cents) {
+        if (count == 0) {
+            min = cents;
+            max = cents;
+        } else {
+            if (min > cents) min = cents;
+            if (max < cents) max = cents;
+        }
+        sum += cents;
+        count++;
+    }
+
+    public AmountSummaryStatistics merge(AmountSummaryStatistics s) {
+        if (s.count > 0) {
+            if (count == 0) {
+                min = s.min;
+                max = s.max;
+            } else {
+                if (min > s.min) min = s.min;
+                if (max < s.max) max = s.max;
+            }
+            sum += s.sum;
+            count += s.count;
+        }
+        return this;
+    }
+
+    public void reset() {
+        count = 0;
+        sum = 0;
+        min = 0;
+        max = 0;
+    }
+
+    /**
+     * Average in whole cents, rounded half-even (banker's rounding):
+     * 10.005 becomes 10.00 and 10.015 becomes 10.02. Zero when empty.
+     *
+     * @return
+     */
+    public long getAvg() {
+        if (count == 0) {
+            return 0;
+        }
+        long quotient = Math.floorDiv(sum, count);
+        long twiceRemainder = 2 * Math.floorMod(sum, count);
+        if (twiceRemainder > count || (twiceRemainder == count && (quotient & 1) == 1)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    @Override
+    public String toString() {
+        return count == 0 ? "empty" : (count + " elements between " + min + " and " + max + " cents, sum=" + sum);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.loans.finance;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Time-bucketed rings of pre-aggregated statistics, one bucket per second, per minute and per hour.
+ * Every amount is recorded into one bucket of each level, so the rollups are maintained incrementally.
+ * A snapshot covers its period with the coarsest buckets that fit: at most 59 seconds and 59 minutes
+ * on either end and whole hours in between, so a one-hour snapshot merges about as many buckets as a one-minute one.
+ * With histograms on every bucket also counts its amounts per cent, see {@link AmountHistogram}.
+ */
+public class SlidingWindowStatistics {
+
+    private static final int[] UNITS = {1, 60, 3600};
+
+    private final Level[] levels;
+    private final long windowSeconds;
+    private final boolean histograms;
+    private final Clock clock;
+
+    public SlidingWindowStatistics(Duration window) {
+        this(window, false);
+    }
+
+    public SlidingWindowStatistics(Duration window, boolean histograms) {
+        this(window, histograms, Clock.systemUTC());
+    }
+
+    public SlidingWindowStatistics(Duration window, Clock clock) {
+        this(window, false, clock);
+    }
+
+    /**
+     * @param window longest period a snapshot can cover
+     * @param histograms count amounts per cent in every bucket, for distributions and percentiles
+     * @param clock
+     */
+    public SlidingWindowStatistics(Duration window, boolean histograms, Clock clock) {
+        this.windowSeconds = Math.max(1, window.getSeconds());
+        this.histograms = histograms;
+        int count = 1;
+        while (count < UNITS.length && UNITS[count] <= windowSeconds) {
+            count++;
+        }
+        this.levels = new Level[count];
+        levels[0] = new Level(1, (int) windowSeconds, histograms);
+        for (int i = 1; i < count; i++) {
+            levels[i] = new Level(UNITS[i], (int) (windowSeconds / UNITS[i] + 2), histograms);
+        }
+        this.clock = clock;
+    }
+
+    public void record(long cents) {
+        record(cents, clock.millis());
+    }
+
+    /**
+     * Records an amount at the given time, e.g. when replaying a journal.
+     * Amounts older than the period currently kept in their bucket are ignored at that level.
+     *
+     * @param cents
+     * @param epochMillis
+     */
+    public void record(long cents, long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000L);
+        for (Level level : levels) {
+            level.record(cents, second);
+        }
+    }
+
+    /**
+     * Merges the buckets of the last {@code period} seconds, the current (partial) second included.
+     * Periods longer than the window are capped to the window.
+     *
+     * @param period
+     * @return
+     */
+    public AmountSummaryStatistics snapshot(Duration period) {
+        return snapshot(period, null);
+    }
+
+    /**
+     * Also merges the histograms of the buckets into the distribution.
+     *
+     * @param period
+     * @param distribution null for the summary only
+     * @return
+     * @throws IllegalStateException if a distribution is requested but histograms are off
+     */
+    public AmountSummaryStatistics snapshot(Duration period, AmountDistribution distribution) {
+        if (distribution != null && !histograms) {
+            throw new IllegalStateException("Amount histograms are off");
+        }
+        long now = currentSecond();
+        long second = now - Math.min(Math.max(1, period.getSeconds()), windowSeconds) + 1;
+        AmountSummaryStatistics result = new AmountSummaryStatistics();
+        while (second <= now) {
+            Level level = levels[0];
+            for (int i = levels.length - 1; i > 0; i--) {
+                if (Math.floorMod(second, (long) levels[i].unit) == 0 && second + levels[i].unit - 1 <= now) {
+                    level = levels[i];
+                    break;
+                }
+            }
+            level.mergeInto(result, distribution, second);
+            second += level.unit;
+        }
+        return result;
+    }
+
+    public Duration getWindow() {
+        return Duration.ofSeconds(windowSeconds);
+    }
+
+    public boolean hasHistograms() {
+        return histograms;
+    }
+
+    private long currentSecond() {
+        return Math.floorDiv(clock.millis(), 1000L);
+    }
+
+    /**
+     * Ring of buckets of {@code unit} seconds each.
+     */
+    private static final class Level {
+        final int unit;
+        final Bucket[] buckets;
+
+        Level(int unit, int size, boolean histograms) {
+            this.unit = unit;
+            this.buckets = new Bucket[size];
+            for (int i = 0; i < size; i++) {
+                buckets[i] = new Bucket(histograms ? new AmountHistogram() : null);
+            }
+        }
+
+        void record(long cents, long second) {
+            long period = Math.floorDiv(second, (long) unit);
+            Bucket bucket = buckets[index(period)];
+            synchronized (bucket) {
+                if (bucket.period > period) {
+                    return;
+                }
+                if (bucket.period != period) {
+                    bucket.period = period;
+                    bucket.statistics.reset();
+                    if (bucket.histogram != null) {
+                        bucket.histogram.reset();
+                    }
+                }
+                bucket.statistics.accept(cents);
+                if (bucket.histogram != null) {
+                    bucket.histogram.accept(cents);
+                }
+            }
+        }
+
+        void mergeInto(AmountSummaryStatistics result, AmountDistribution distribution, long second) {
+            long period = Math.floorDiv(second, (long) unit);
+            Bucket bucket = buckets[index(period)];
+            synchronized (bucket) {
+                if (bucket.period == period) {
+                    result.merge(bucket.statistics);
+                    if (distribution != null) {
+                        bucket.histogram.addTo(distribution);
+                    }
+                }
+            }
+        }
+
+        private int index(long period) {
+            return (int) Math.floorMod(period, (long) buckets.length);
+        }
+    }
+
+    private static final class Bucket {
+        long period = Long.MIN_VALUE;
+        final AmountSummaryStatistics statistics = new AmountSummaryStatistics();
+        final AmountHistogram histogram;
+
+        Bucket(AmountHistogram histogram) {
+            this.histogram = histogram;
+        }
+    }
+}
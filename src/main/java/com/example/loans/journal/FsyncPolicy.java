@@ -0,0 +1,13 @@
+package com.example.loans.journal;
+
+/**
+ * When {@link Journal} forces written records from the page cache to the disk.
+ */
+public enum FsyncPolicy {
+    /** Never explicitly, the OS writes pages back on its own. Survives a process crash, not a power loss. */
+    NONE,
+    /** A background flush every {@code app.journal.flush-interval}. Bounds the loss window. */
+    INTERVAL,
+    /** An append returns once its record is on disk. Concurrent appends share one force (group commit). */
+    COMMIT
+}
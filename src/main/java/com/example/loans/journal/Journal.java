@@ -0,0 +1,502 @@
+package com.example.loans.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log in memory-mapped segment files of fixed size.
+ * <p>
+ * Record layout: {@code [int length][int crc32 of payload][payload]}. Segments are zero filled when mapped,
+ * so a zero length marks the end of the written part, and a checksum mismatch marks a write torn by a crash.
+ * A negative length marks a reserved record whose change was rejected, replay skips it.
+ * <p>
+ * An append reserves space for its record under one short lock, then applies the change and copies the record
+ * into the reserved space without it, so appends of different keys run concurrently. Appends of the same key,
+ * e.g. one customer, are serialized by a striped lock, so replay sees them in the order they were applied.
+ * Forcing the mapping to disk happens on a flusher thread, according to the {@link FsyncPolicy}.
+ */
+@Slf4j
+public class Journal implements Closeable {
+
+    private static final int HEADER = 8;
+    private static final String SUFFIX = ".journal";
+    private static final int STRIPES = 64;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration flushInterval;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object flushMonitor = new Object();
+    private volatile Segment current;
+    private int writePosition;
+    private long forcesRequested;
+    private long forcesStarted;
+    private long forcesCompleted;
+    private long forcedRecords;
+
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong forces = new AtomicLong();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public Journal(Path directory, int segmentSize, FsyncPolicy fsyncPolicy, Duration flushInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.flushInterval = flushInterval;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public long open(Consumer<ByteBuffer> handler) {
+        return open(0, handler);
+    }
+
+    /**
+     * Replays valid records in segment order and positions the writer after the last one.
+     * Must be called once, before the first append.
+     *
+     * @param fromOffset records before this offset are already part of a snapshot and are skipped
+     * @param handler receives a read-only view of each payload
+     * @return number of replayed records
+     */
+    public long open(long fromOffset, Consumer<ByteBuffer> handler) {
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments;
+            try (Stream<Path> files = Files.list(directory)) {
+                segments = files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+
+            long replayed = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                boolean last = i == segments.size() - 1;
+                if (!last && (indexOf(segments.get(i)) + 1) * segmentSize <= fromOffset) {
+                    continue;
+                }
+                Segment segment = Segment.open(segments.get(i), segmentSize);
+                int end = replay(segment, fromOffset - segment.index * segmentSize, handler);
+                replayed += segment.records;
+                if (!last) {
+                    if (end + HEADER <= segmentSize && segment.buffer.getInt(end) != 0) {
+                        log.warn("Journal segment {} is corrupt after offset {}, the rest of it is skipped", segment.path, end);
+                    }
+                    segment.close();
+                } else {
+                    current = segment;
+                    writePosition = truncate(segment, end);
+                }
+            }
+            if (current == null) {
+                current = Segment.open(directory.resolve(segmentName(0)), segmentSize);
+                writePosition = 0;
+            }
+            records.set(replayed);
+            forcedRecords = replayed;
+        } catch (IOException e) {
+            throw new JournalException("Cannot open journal in " + directory, e);
+        }
+
+        running = true;
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            flusher = new Thread(this::flushLoop, "journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        return records.get();
+    }
+
+    /**
+     * Reserves space for the record, runs {@code apply} and, if it returns true, writes the record into the reserved space.
+     * A full segment is rolled before {@code apply} runs, so a change applied in memory always has its place in the journal.
+     * Appends with the same key run one at a time, in the order of the journal.
+     * With {@link FsyncPolicy#COMMIT} waits until the record is forced to disk.
+     *
+     * @param key ordering key, e.g. the customer code, changes of one key are replayed in the order they were applied
+     * @param payload record, read from its position to its limit, checksummed and written after {@code apply},
+     *                which may update bytes of it in place
+     * @param apply in-memory change, returns false if the change was rejected and must not be journaled
+     * @return result of {@code apply}
+     */
+    public boolean append(long key, ByteBuffer payload, BooleanSupplier apply) {
+        int length = payload.remaining();
+        if (HEADER + length > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + length + " bytes does not fit a segment");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        ReentrantLock stripe = stripes[stripeOf(key)];
+        boolean forced;
+        stripe.lock();
+        try {
+            Segment segment;
+            int position;
+            appendLock.lock();
+            try {
+                if (writePosition + HEADER + length > segmentSize) {
+                    roll();
+                }
+                segment = current;
+                position = writePosition;
+                writePosition += HEADER + length;
+                segment.pending.incrementAndGet();
+                // a crash before the record is written leaves a checksum mismatch, replay skips it
+                segment.buffer.putInt(position + 4, ~(int) crc.getValue());
+                segment.buffer.putInt(position, length);
+            } finally {
+                appendLock.unlock();
+            }
+
+            boolean applied = false;
+            try {
+                applied = apply.getAsBoolean();
+            } finally {
+                if (applied) {
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    ByteBuffer target = segment.buffer.duplicate();
+                    target.position(position + HEADER);
+                    target.put(payload.duplicate());
+                    segment.buffer.putInt(position + 4, (int) crc.getValue());
+                    records.incrementAndGet();
+                } else {
+                    segment.buffer.putInt(position, -length);
+                }
+                forced = release(segment);
+            }
+            if (!applied) {
+                return false;
+            }
+        } finally {
+            stripe.unlock();
+        }
+
+        if (fsyncPolicy == FsyncPolicy.COMMIT && !forced) {
+            awaitForce();
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        appendLock.lock();
+        try {
+            if (current != null) {
+                current.buffer.force();
+                current.close();
+                current = null;
+            }
+        } catch (IOException e) {
+            log.error("Cannot close journal segment", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Offset right after the last appended record. Every change applied in memory before this call
+     * is journaled before this offset. Waits for appends in progress, holding every stripe.
+     */
+    public long currentOffset() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            appendLock.lock();
+            try {
+                return offset();
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            for (ReentrantLock stripe : stripes) {
+                stripe.unlock();
+            }
+        }
+    }
+
+    /**
+     * Deletes segments that end at or before the offset, e.g. once a snapshot covers them.
+     * The current segment is never deleted.
+     *
+     * @param offset
+     * @return number of deleted segments
+     */
+    public int deleteSegmentsBefore(long offset) {
+        long currentIndex;
+        appendLock.lock();
+        try {
+            currentIndex = current.index;
+        } finally {
+            appendLock.unlock();
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).collect(Collectors.toList())) {
+                long index = indexOf(file);
+                if (index < currentIndex && (index + 1) * segmentSize <= offset) {
+                    Files.delete(file);
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new JournalException("Cannot delete journal segments in " + directory, e);
+        }
+        return deleted;
+    }
+
+    public long getRecords() {
+        return records.get();
+    }
+
+    public long getForces() {
+        return forces.get();
+    }
+
+    private int replay(Segment segment, long skipBefore, Consumer<ByteBuffer> handler) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length < 0 && position + HEADER - length <= segmentSize) {
+                position += HEADER - length;
+                continue;
+            }
+            if (length == 0 || position + HEADER + length > segmentSize) {
+                break;
+            }
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(position + HEADER).limit(position + HEADER + length);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                log.warn("Journal segment {} has a torn or unfinished record at offset {}, skipping it", segment.path, position);
+            } else if (position >= skipBefore) {
+                handler.accept(payload.slice().asReadOnlyBuffer());
+                segment.records++;
+            }
+            position += HEADER + length;
+        }
+        return position;
+    }
+
+    /**
+     * Zeroes a torn tail left by a crash, so it cannot be mistaken for records on the next replay.
+     */
+    private int truncate(Segment segment, int end) {
+        if (end + HEADER <= segmentSize && segment.buffer.getInt(end) != 0) {
+            log.warn("Journal segment {} has a torn record at offset {}, truncating", segment.path, end);
+            for (int i = end; i < segmentSize; i++) {
+                segment.buffer.put(i, (byte) 0);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Called under the append lock. The next segment is opened before the full one is retired, so a failure
+     * leaves the journal writing to the full segment and fails only this append, before its change is applied.
+     * The full segment is forced right away, the flusher only forces the current one. Records still being
+     * written into it are forced by their writers, the last one closes it.
+     */
+    private void roll() {
+        Segment full = current;
+        Segment next;
+        try {
+            next = Segment.open(directory.resolve(segmentName(full.index + 1)), segmentSize);
+        } catch (IOException e) {
+            throw new JournalException("Cannot roll journal segment in " + directory, e);
+        }
+        current = next;
+        writePosition = 0;
+        full.retired = true;
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            full.buffer.force();
+            forces.incrementAndGet();
+        }
+        if (full.pending.get() == 0) {
+            closeQuietly(full);
+        }
+    }
+
+    /**
+     * Ends a write into the segment.
+     *
+     * @return true if the segment was retired meanwhile and this call forced it
+     */
+    private boolean release(Segment segment) {
+        boolean forced = false;
+        if (segment.retired && fsyncPolicy != FsyncPolicy.NONE) {
+            segment.buffer.force();
+            forces.incrementAndGet();
+            forced = true;
+        }
+        if (segment.pending.decrementAndGet() == 0 && segment.retired) {
+            closeQuietly(segment);
+        }
+        return forced;
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.error("Cannot close journal segment {}", segment.path, e);
+        }
+    }
+
+    /**
+     * Waits for a force that starts after the caller's record was written. Concurrent callers share one force.
+     */
+    private void awaitForce() {
+        synchronized (flushMonitor) {
+            long needed = forcesStarted + 1;
+            forcesRequested = Math.max(forcesRequested, needed);
+            flushMonitor.notifyAll();
+            while (forcesCompleted < needed) {
+                if (!running) {
+                    throw new JournalException("Journal is closed", null);
+                }
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JournalException("Interrupted while waiting for journal flush", e);
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                synchronized (flushMonitor) {
+                    if (fsyncPolicy == FsyncPolicy.COMMIT) {
+                        while (running && forcesStarted >= forcesRequested) {
+                            flushMonitor.wait();
+                        }
+                    } else {
+                        flushMonitor.wait(flushInterval.toMillis());
+                    }
+                }
+                flush();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Journal flush failed", e);
+            }
+        }
+        flush();
+    }
+
+    private void flush() {
+        MappedByteBuffer buffer;
+        appendLock.lock();
+        try {
+            if (current == null) {
+                return;
+            }
+            buffer = current.buffer;
+        } finally {
+            appendLock.unlock();
+        }
+        long started;
+        long written = records.get();
+        synchronized (flushMonitor) {
+            if (written == forcedRecords && forcesStarted >= forcesRequested) {
+                return;
+            }
+            started = ++forcesStarted;
+        }
+        buffer.force();
+        forces.incrementAndGet();
+        synchronized (flushMonitor) {
+            forcedRecords = Math.max(forcedRecords, written);
+            forcesCompleted = Math.max(forcesCompleted, started);
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private static int stripeOf(long key) {
+        return Long.hashCode(key * 0x9E3779B97F4A7C15L) >>> 26;
+    }
+
+    private long offset() {
+        return current.index * segmentSize + writePosition;
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static String segmentName(long index) {
+        return String.format("%020d%s", index, SUFFIX);
+    }
+
+    private static final class Segment {
+        final Path path;
+        final long index;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicInteger pending = new AtomicInteger();
+        volatile boolean retired;
+        long records;
+
+        private Segment(Path path, long index, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, int size) throws IOException {
+            long index = indexOf(path);
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(path, index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        /**
+         * Idempotent, the mapping stays valid after the channel is closed.
+         */
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.loans.journal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Journal of loan changes, off unless {@code app.journal.enabled=true}.
+ * LoanRepository replays it on startup and writes through it afterwards.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.journal.enabled", havingValue = "true")
+public class JournalConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public Journal journal(@Value("${app.journal.directory:journal}") String directory,
+                           @Value("${app.journal.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${app.journal.fsync:INTERVAL}") FsyncPolicy fsyncPolicy,
+                           @Value("${app.journal.flush-interval:100ms}") Duration flushInterval) {
+        return new Journal(Paths.get(directory), (int) segmentSize.toBytes(), fsyncPolicy, flushInterval);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.loans.journal;
+
+public class JournalException extends RuntimeException {
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.loans.journal;
+
+import com.example.loans.finance.Amount;
+import com.example.loans.model.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.example.loans.model.DecisionState.PENDING;
+
+/**
+ * Binary journal records of loan changes. Every record starts with a type byte and the epoch millis
+ * of the change, strings are UTF-8 prefixed by a short length and limited to {@link Approver#MAX_NAME_BYTES}.
+ * <pre>
+ * PENDING:  type, millis, uuid msb, uuid lsb, customer code, cents, approver count, approvers
+ * DECISION: type, millis, customer code, state ordinal, completion sequence, completed flag, approver
+ * </pre>
+ * The completion sequence is the {@link EventKey} sequence the loan gets in the completion index if this decision
+ * completes it, so history cursors stay valid across restarts.
+ */
+public final class LoanEvents {
+
+    public static final byte PENDING_LOAN = 1;
+    public static final byte DECISION = 2;
+
+    private static final int COMPLETED_FLAG = 1 + 8 + 8 + 1 + 8;
+
+    public interface Handler {
+        void pending(LoanApprovalRequest request, long epochMillis);
+
+        /**
+         * @param completed whether this decision completed the loan when it was made
+         */
+        void decision(Decision decision, long epochMillis, long completionSequence, boolean completed);
+    }
+
+    private LoanEvents() {
+    }
+
+    public static ByteBuffer pending(LoanRecord loanRecord, long epochMillis) {
+        byte[][] approvers = new byte[loanRecord.getApprovers().length][];
+        int size = 1 + 8 * 6 + 1;
+        for (int i = 0; i < approvers.length; i++) {
+            approvers[i] = Approver.encodeName(loanRecord.getApprovers()[i]);
+            size += 2 + approvers[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size)
+                .put(PENDING_LOAN)
+                .putLong(epochMillis)
+                .putLong(loanRecord.getUuid().getMostSignificantBits())
+                .putLong(loanRecord.getUuid().getLeastSignificantBits())
+                .putLong(loanRecord.getCustomerCode())
+                .putLong(loanRecord.getLoanAmountCents())
+                .put((byte) approvers.length);
+        for (byte[] approver : approvers) {
+            putString(buffer, approver);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public static ByteBuffer decision(long customerCode, String approverUsername, DecisionState state, long epochMillis,
+                                      long completionSequence) {
+        byte[] approver = Approver.encodeName(approverUsername);
+        ByteBuffer buffer = ByteBuffer.allocate(COMPLETED_FLAG + 1 + 2 + approver.length)
+                .put(DECISION)
+                .putLong(epochMillis)
+                .putLong(customerCode)
+                .put((byte) state.ordinal())
+                .putLong(completionSequence)
+                .put((byte) 0);
+        putString(buffer, approver);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Marks a decision record as the one that completed its loan. Called while the journal applies it,
+     * before the record is written.
+     */
+    public static void completed(ByteBuffer decision) {
+        decision.put(decision.position() + COMPLETED_FLAG, (byte) 1);
+    }
+
+    public static void read(ByteBuffer record, Handler handler) {
+        byte type = record.get();
+        long epochMillis = record.getLong();
+        switch (type) {
+            case PENDING_LOAN:
+                UUID uuid = new UUID(record.getLong(), record.getLong());
+                String customerId = CustomerId.decode(record.getLong());
+                Amount loanAmount = Amount.ofCents(record.getLong());
+                int count = record.get();
+                Set<Approver> approvers = new LinkedHashSet<>();
+                for (int i = 0; i < count; i++) {
+                    approvers.add(new Approver(getString(record)));
+                }
+                ZonedDateTime timestamp = ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+                handler.pending(new LoanApprovalRequest(customerId, loanAmount, approvers, timestamp, PENDING, uuid), epochMillis);
+                break;
+            case DECISION:
+                String decided = CustomerId.decode(record.getLong());
+                DecisionState state = DecisionState.values()[record.get()];
+                long completionSequence = record.getLong();
+                boolean completed = record.get() != 0;
+                Decision decision = Decision.builder()
+                        .customerId(decided)
+                        .state(state)
+                        .approverUsername(getString(record))
+                        .build();
+                handler.decision(decision, epochMillis, completionSequence, completed);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record type " + type);
+        }
+    }
+
+    /**
+     * @param value at most {@link Approver#MAX_NAME_BYTES}, so the length fits the short prefix
+     */
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value.length > Approver.MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Journal string of " + value.length + " bytes, at most " + Approver.MAX_NAME_BYTES + " are allowed");
+        }
+        buffer.putShort((short) value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.loans.metrics;
+
+import com.example.loans.model.LoanRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of the repository hot path. Meters are registered once and recording
+ * only updates their adders, no lookup, tags or allocation per call.
+ */
+@Component
+public class LoanMetrics {
+
+    /**
+     * Backed by a registry without children, every meter is a no-op. Used when no registry is configured.
+     */
+    public static final LoanMetrics NOOP = new LoanMetrics(new CompositeMeterRegistry());
+
+    private final Timer saveAsPendingTimer;
+    private final Timer saveTimer;
+    private final Timer getStatisticsTimer;
+    private final Counter duplicates;
+    private final Counter notFound;
+    private final Counter unknownApprover;
+    private final Counter approved;
+    private final Counter declined;
+    private final Timer compactionTimer;
+    private final Counter compactedRequests;
+
+    public LoanMetrics(MeterRegistry registry) {
+        saveAsPendingTimer = timer(registry, "saveAsPending");
+        saveTimer = timer(registry, "save");
+        getStatisticsTimer = timer(registry, "getStatistics");
+        duplicates = Counter.builder("loans.duplicates")
+                .description("Approval requests rejected because the customer already has a pending loan")
+                .register(registry);
+        notFound = rejected(registry, "not_found");
+        unknownApprover = rejected(registry, "unknown_approver");
+        approved = completed(registry, "approved");
+        declined = completed(registry, "declined");
+        compactionTimer = Timer.builder("loans.compaction")
+                .description("Storage compaction passes and their pauses")
+                .register(registry);
+        compactedRequests = Counter.builder("loans.compaction.removed")
+                .description("Finished requests removed by compaction")
+                .register(registry);
+    }
+
+    public void saveAsPending(long nanos) {
+        saveAsPendingTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void save(long nanos) {
+        saveTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void getStatistics(long nanos) {
+        getStatisticsTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records one compaction pass.
+     *
+     * @param nanos pause of the pass
+     * @param removed finished requests removed by the pass
+     */
+    public void compaction(long nanos, int removed) {
+        compactionTimer.record(nanos, TimeUnit.NANOSECONDS);
+        compactedRequests.increment(removed);
+    }
+
+    public void duplicate() {
+        duplicates.increment();
+    }
+
+    /**
+     * Counts the outcome of an accepted or rejected decision: completed loans by state, rejected decisions by reason.
+     * RECORDED outcomes are not counted.
+     *
+     * @param outcome
+     */
+    public void decision(LoanRecord.Outcome outcome) {
+        switch (outcome) {
+            case APPROVED:
+                approved.increment();
+                break;
+            case DECLINED:
+                declined.increment();
+                break;
+            case FINISHED:
+                notFound.increment();
+                break;
+            case UNKNOWN_APPROVER:
+                unknownApprover.increment();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder("loans.repository")
+                .description("Loan repository calls")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static Counter rejected(MeterRegistry registry, String reason) {
+        return Counter.builder("loans.decisions.rejected")
+                .description("Decisions rejected by the repository")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static Counter completed(MeterRegistry registry, String state) {
+        return Counter.builder("loans.completed")
+                .description("Loans completed by their approvers' decisions")
+                .tag("state", state)
+                .register(registry);
+    }
+}
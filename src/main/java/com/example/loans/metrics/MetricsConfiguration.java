@@ -0,0 +1,125 @@
+package com.example.loans.metrics;
+
+import com.example.loans.dao.LongConcurrentHashMap;
+import com.example.loans.dao.ShardedLoanEngine;
+import com.example.loans.journal.Journal;
+import com.example.loans.model.EventKey;
+import com.example.loans.model.LoanRecord;
+import com.example.loans.notification.NotificationPipeline;
+import com.example.loans.task.SnapshotTask;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Gauges and function counters read from existing state at scrape time, nothing is recorded on the request path.
+ * The completion index size is counted by walking the skip list, so its cost grows with the number of finished loans.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder loanStorageMetrics(LongConcurrentHashMap<LoanRecord> pendingLoans,
+                                          ConcurrentHashMap<UUID, LoanRecord> loanHistory,
+                                          ConcurrentSkipListMap<EventKey, LoanRecord> completions) {
+        return registry -> {
+            Gauge.builder("loans.pending", pendingLoans, LongConcurrentHashMap::size)
+                    .description("Loans waiting for decisions")
+                    .register(registry);
+            Gauge.builder("loans.history", loanHistory, ConcurrentHashMap::size)
+                    .description("Finished loans kept in storage")
+                    .register(registry);
+            Gauge.builder("loans.completions", completions, ConcurrentSkipListMap::size)
+                    .description("Completion index entries")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder engineMetrics(ObjectProvider<ShardedLoanEngine> engine) {
+        return registry -> engine.ifAvailable(e -> {
+            for (int i = 0; i < e.getShardCount(); i++) {
+                ShardedLoanEngine.Shard shard = e.getShard(i);
+                Tags tags = Tags.of("shard", String.valueOf(i));
+                Gauge.builder("loans.shard.queue", shard, ShardedLoanEngine.Shard::getQueueDepth)
+                        .tags(tags)
+                        .description("Commands waiting for the shard thread")
+                        .register(registry);
+                FunctionCounter.builder("loans.shard.commands", shard, ShardedLoanEngine.Shard::getExecuted)
+                        .tags(tags)
+                        .register(registry);
+                FunctionCounter.builder("loans.shard.full.waits", shard, ShardedLoanEngine.Shard::getFullWaits)
+                        .tags(tags)
+                        .description("Times a caller waited for space in the shard ring")
+                        .register(registry);
+            }
+        });
+    }
+
+    @Bean
+    public MeterBinder taskSchedulerMetrics(ThreadPoolTaskScheduler threadPoolTaskScheduler) {
+        return registry -> new ExecutorServiceMetrics(threadPoolTaskScheduler.getScheduledThreadPoolExecutor(),
+                "taskScheduler", Tags.empty()).bindTo(registry);
+    }
+
+    @Bean
+    public MeterBinder notificationMetrics(NotificationPipeline pipeline) {
+        return registry -> {
+            Gauge.builder("notifications.queue", pipeline, NotificationPipeline::getQueueDepth)
+                    .description("Notifications waiting for the dispatcher")
+                    .register(registry);
+            Gauge.builder("notifications.spill.backlog", pipeline, NotificationPipeline::getSpillBacklog)
+                    .description("Spilled notifications not delivered yet")
+                    .register(registry);
+            functionCounter(registry, "notifications.submitted", pipeline, NotificationPipeline::getSubmitted);
+            functionCounter(registry, "notifications.delivered", pipeline, NotificationPipeline::getDelivered);
+            functionCounter(registry, "notifications.dropped", pipeline, NotificationPipeline::getDropped);
+            functionCounter(registry, "notifications.spilled", pipeline, NotificationPipeline::getSpilled);
+            functionCounter(registry, "notifications.failed", pipeline, NotificationPipeline::getFailed);
+            functionCounter(registry, "notifications.retries", pipeline, NotificationPipeline::getRetries);
+            TimeGauge.builder("notifications.dispatch.latency.max", pipeline, TimeUnit.NANOSECONDS,
+                    NotificationPipeline::getMaxDispatchLatencyNanos)
+                    .description("Longest time from submit to delivery")
+                    .register(registry);
+            TimeGauge.builder("notifications.dispatch.latency.avg", pipeline, TimeUnit.NANOSECONDS,
+                    NotificationPipeline::getAverageDispatchLatencyNanos)
+                    .description("Average time from submit to delivery")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder persistenceMetrics(ObjectProvider<Journal> journal, ObjectProvider<SnapshotTask> snapshotTask) {
+        return registry -> {
+            journal.ifAvailable(j -> {
+                functionCounter(registry, "journal.records", j, Journal::getRecords);
+                functionCounter(registry, "journal.forces", j, Journal::getForces);
+            });
+            snapshotTask.ifAvailable(task -> {
+                functionCounter(registry, "snapshot.count", task, SnapshotTask::getSnapshots);
+                Gauge.builder("snapshot.last.records", task, SnapshotTask::getLastRecords)
+                        .register(registry);
+                TimeGauge.builder("snapshot.last.duration", task, TimeUnit.MILLISECONDS, SnapshotTask::getLastDurationMillis)
+                        .register(registry);
+            });
+        };
+    }
+
+    private static <T> void functionCounter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder(name, source, count).register(registry);
+    }
+}
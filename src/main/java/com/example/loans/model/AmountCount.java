@@ -0,0 +1,17 @@
+package com.example.loans.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Number of contracts of one amount, an entry of the statistics distribution.
+ */
+@Getter
+@AllArgsConstructor
+public class AmountCount {
+
+    private final BigDecimal amount;
+    private final long count;
+}
@@ -1,12 +1,13 @@
 package com.example.loans.model;
 
-import java.math.BigDecimal;
+import com.example.loans.finance.Amount;
+
 import java.time.ZonedDateTime;
 import java.util.Set;
 import java.util.UUID;
 
 public interface ApprovalRequest {
-    BigDecimal getLoanAmount();
+    Amount getLoanAmount();
     ZonedDateTime getTimestamp();
     String getCustomerId();
     void setUuid(UUID uuid);
@@ -3,8 +3,30 @@ package com.example.loans.model;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import java.nio.charset.StandardCharsets;
+
 @AllArgsConstructor
 public class Approver {
+
+    public static final int MAX_NAME_LENGTH = 255;
+    /**
+     * UTF-8 length of the longest name, a char takes at most 3 bytes.
+     */
+    public static final int MAX_NAME_BYTES = 3 * MAX_NAME_LENGTH;
+
     @Getter
     String name;
+
+    /**
+     * UTF-8 bytes of an approver name, as written to the journal and snapshots with a short length prefix.
+     *
+     * @throws IllegalArgumentException if the name is longer than {@link #MAX_NAME_BYTES}
+     */
+    public static byte[] encodeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Approver name of " + bytes.length + " bytes, at most " + MAX_NAME_BYTES + " are allowed");
+        }
+        return bytes;
+    }
 }
@@ -0,0 +1,63 @@
+package com.example.loans.model;
+
+/**
+ * Packs customer IDs of the form XX-XXXX-XXX (X is a letter or a digit) into a long.
+ * Every character takes 6 bits, so 9 characters use the lower 54 bits.
+ * Valid IDs never encode to 0, which is left free as an empty marker for primitive maps.
+ */
+public final class CustomerId {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int BITS = 6;
+    private static final int LENGTH = 11;
+    private static final byte[] CODES = new byte[128];
+
+    static {
+        for (int i = 0; i < ALPHABET.length(); i++) {
+            CODES[ALPHABET.charAt(i)] = (byte) (i + 1);
+        }
+    }
+
+    private CustomerId() {
+    }
+
+    public static long encode(String customerId) {
+        if (customerId == null || customerId.length() != LENGTH
+                || customerId.charAt(2) != '-' || customerId.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid customerId: " + customerId);
+        }
+        long encoded = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            if (i == 2 || i == 7) {
+                continue;
+            }
+            char c = customerId.charAt(i);
+            int code = c < 128 ? CODES[c] : 0;
+            if (code == 0) {
+                throw new IllegalArgumentException("Invalid customerId: " + customerId);
+            }
+            encoded = (encoded << BITS) | code;
+        }
+        return encoded;
+    }
+
+    public static String decode(long encoded) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            if (i == 2 || i == 7) {
+                chars[i] = '-';
+                continue;
+            }
+            int code = (int) (encoded & ((1 << BITS) - 1));
+            if (code == 0 || code > ALPHABET.length()) {
+                throw new IllegalArgumentException("Invalid encoded customerId: " + encoded);
+            }
+            chars[i] = ALPHABET.charAt(code - 1);
+            encoded >>>= BITS;
+        }
+        if (encoded != 0) {
+            throw new IllegalArgumentException("Invalid encoded customerId");
+        }
+        return new String(chars);
+    }
+}
@@ -1,33 +1,30 @@
 package com.example.loans.model;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-import java.time.ZonedDateTime;
-import java.util.UUID;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * Key of the time ordered event and completion indexes: epoch millis, then a sequence number
+ * that keeps keys of the same millisecond apart. Compared as two longs, without allocation.
+ */
+@Value
 public class EventKey implements Comparable<EventKey> {
 
-    ZonedDateTime timestamp;
-    UUID uuid;
+    long epochMillis;
+    long sequence;
 
-    public EventKey(ZonedDateTime timestamp) {
-        this.timestamp = timestamp;
+    /**
+     * Sorts before every other key of the same millisecond, used as a range bound.
+     *
+     * @param epochMillis
+     * @return
+     */
+    public static EventKey first(long epochMillis) {
+        return new EventKey(epochMillis, Long.MIN_VALUE);
     }
 
     @Override
     public int compareTo(EventKey o) {
-        int compareTimestamps = Long.compare(this.timestamp.toInstant().toEpochMilli(), o.timestamp.toInstant().toEpochMilli());
-        if (compareTimestamps != 0) {
-            return compareTimestamps;
-        } else if (this.uuid != null && o.uuid != null){
-            return this.uuid.compareTo(o.uuid);
-        } else {
-            return 0;
-        }
+        int compareTimestamps = Long.compare(epochMillis, o.epochMillis);
+        return compareTimestamps != 0 ? compareTimestamps : Long.compare(sequence, o.sequence);
     }
 }
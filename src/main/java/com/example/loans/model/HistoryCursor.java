@@ -0,0 +1,70 @@
+package com.example.loans.model;
+
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position in the completion history of the cluster: completion millis, node, then the {@link EventKey} sequence,
+ * which is unique per node only. Rendered as an opaque URL-safe string.
+ * <p>
+ * Every node resumes its own completion index right after the cursor, so pages of several nodes
+ * merge in this order without gaps or repeats.
+ */
+@Value
+public class HistoryCursor implements Comparable<HistoryCursor> {
+
+    private static final int BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    long epochMillis;
+    int node;
+    long sequence;
+
+    public static HistoryCursor of(EventKey eventKey, int node) {
+        return new HistoryCursor(eventKey.getEpochMillis(), node, eventKey.getSequence());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the string is not a cursor
+     */
+    public static HistoryCursor decode(String cursor) {
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new HistoryCursor(buffer.getLong(), buffer.getInt(), buffer.getLong());
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES).putLong(epochMillis).putInt(node).putLong(sequence);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * First key of the node's completion index after the cursor. Keys of the cursor's millisecond
+     * are after it on nodes with a higher id, before it on nodes with a lower one.
+     *
+     * @param node
+     * @return inclusive bound
+     */
+    public EventKey nextKey(int node) {
+        if (node < this.node) {
+            return EventKey.first(epochMillis + 1);
+        }
+        if (node > this.node) {
+            return EventKey.first(epochMillis);
+        }
+        return new EventKey(epochMillis, sequence + 1);
+    }
+
+    @Override
+    public int compareTo(HistoryCursor o) {
+        int compare = Long.compare(epochMillis, o.epochMillis);
+        if (compare == 0) {
+            compare = Integer.compare(node, o.node);
+        }
+        return compare != 0 ? compare : Long.compare(sequence, o.sequence);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.loans.model;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates loan ids without SecureRandom: the high 64 bits hold the creation epoch millis and the node id
+ * ({@code app.node-id}, 0 to 65535), the low 64 bits a counter. Ids of one node never repeat while the clock
+ * does not go back between restarts, ids of different nodes never collide. They are not RFC 4122 random UUIDs.
+ * <p>
+ * The same counter hands out event key sequence numbers. Every thread reserves blocks of {@link #BLOCK} numbers
+ * from it and hands them out locally, so threads do not contend on the counter. Numbers are unique, but only
+ * ordered within one thread.
+ */
+@Component
+public class LoanIdGenerator {
+
+    public static final int MAX_NODE_ID = 0xFFFF;
+    static final int BLOCK = 1024;
+
+    private final long nodeId;
+    private final AtomicLong counter = new AtomicLong();
+    private final ThreadLocal<long[]> reserved = ThreadLocal.withInitial(() -> new long[2]);
+
+    public LoanIdGenerator(@Value("${app.node-id:0}") int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.node-id must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * @param epochMillis creation time of the loan
+     * @return new id, its least significant bits are a fresh {@link #nextSequence()} value
+     */
+    public UUID next(long epochMillis) {
+        return new UUID(epochMillis << 16 | nodeId, nextSequence());
+    }
+
+    public long nextSequence() {
+        long[] block = reserved.get();
+        if (block[0] == block[1]) {
+            block[0] = counter.getAndAdd(BLOCK);
+            block[1] = block[0] + BLOCK;
+        }
+        return block[0]++;
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.loans.model;
+
+import com.example.loans.finance.Amount;
+import lombok.Getter;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static com.example.loans.model.DecisionState.*;
+
+/**
+ * Stored loan: request data, decisions of every approver and the resulting state.
+ * Identity never changes, so the record is safe to keep in hash based indexes.
+ * <p>
+ * Decisions live in one int updated by CAS: approved bits, declined bits (one bit per approver)
+ * and a completed flag. The CAS that fills a quorum also sets the flag, so a loan completes exactly once
+ * and later decisions are rejected.
+ */
+@Getter
+public class LoanRecord {
+
+    public static final int MAX_APPROVERS = 8;
+
+    private static final int APPROVER_BITS = (1 << MAX_APPROVERS) - 1;
+    private static final int DECLINED_SHIFT = MAX_APPROVERS;
+    private static final int COMPLETED = 1 << (2 * MAX_APPROVERS);
+    private static final AtomicIntegerFieldUpdater<LoanRecord> DECISION_MASK =
+            AtomicIntegerFieldUpdater.newUpdater(LoanRecord.class, "decisionMask");
+
+    public enum Outcome {
+        RECORDED, APPROVED, DECLINED, UNKNOWN_APPROVER, FINISHED
+    }
+
+    private final UUID uuid;
+    private final long customerCode;
+    private final long loanAmountCents;
+    private final ZonedDateTime timestamp;
+    private final String[] approvers;
+    private volatile int decisionMask;
+
+    private LoanRecord(ApprovalRequest request) {
+        this.uuid = request.getUuid();
+        this.customerCode = CustomerId.encode(request.getCustomerId());
+        this.loanAmountCents = request.getLoanAmount().getCents();
+        this.timestamp = request.getTimestamp();
+
+        Set<String> names = new LinkedHashSet<>();
+        for (Approver approver : request.getApprovers()) {
+            names.add(approver.getName());
+        }
+        if (names.isEmpty() || names.size() > MAX_APPROVERS) {
+            throw new IllegalArgumentException("A loan needs 1 to " + MAX_APPROVERS + " approvers, got " + names.size());
+        }
+        this.approvers = names.toArray(new String[0]);
+    }
+
+    private LoanRecord(UUID uuid, long customerCode, long loanAmountCents, ZonedDateTime timestamp,
+                       String[] approvers, int decisionMask) {
+        this.uuid = uuid;
+        this.customerCode = customerCode;
+        this.loanAmountCents = loanAmountCents;
+        this.timestamp = timestamp;
+        this.approvers = approvers;
+        this.decisionMask = decisionMask;
+    }
+
+    public static LoanRecord pending(ApprovalRequest request) {
+        return new LoanRecord(request);
+    }
+
+    /**
+     * Recreates a record read from a snapshot, decisions included.
+     */
+    public static LoanRecord restore(UUID uuid, long customerCode, long loanAmountCents, ZonedDateTime timestamp,
+                                     String[] approvers, int decisionMask) {
+        return new LoanRecord(uuid, customerCode, loanAmountCents, timestamp, approvers, decisionMask);
+    }
+
+    /**
+     * Records the decision of one approver. A later decision of the same approver overrides the earlier one.
+     *
+     * @param approverUsername
+     * @param state APPROVED or DECLINED
+     * @return APPROVED/DECLINED if this call completed the loan, RECORDED if it is still pending,
+     * UNKNOWN_APPROVER or FINISHED if the decision was rejected
+     */
+    public Outcome decide(String approverUsername, DecisionState state) {
+        int index = indexOf(approverUsername);
+        if (index < 0) {
+            return Outcome.UNKNOWN_APPROVER;
+        }
+        int bit = 1 << index;
+        int quorum = (1 << approvers.length) - 1;
+
+        for (;;) {
+            int current = decisionMask;
+            if ((current & COMPLETED) != 0) {
+                return Outcome.FINISHED;
+            }
+            int approved = current & APPROVER_BITS;
+            int declined = (current >>> DECLINED_SHIFT) & APPROVER_BITS;
+            if (state == APPROVED) {
+                approved |= bit;
+                declined &= ~bit;
+            } else {
+                declined |= bit;
+                approved &= ~bit;
+            }
+            boolean completed = approved == quorum || declined == quorum;
+            int next = approved | (declined << DECLINED_SHIFT) | (completed ? COMPLETED : 0);
+
+            if (DECISION_MASK.compareAndSet(this, current, next)) {
+                if (!completed) {
+                    return Outcome.RECORDED;
+                }
+                return approved == quorum ? Outcome.APPROVED : Outcome.DECLINED;
+            }
+        }
+    }
+
+    public DecisionState getDecisionState() {
+        int mask = decisionMask;
+        if ((mask & COMPLETED) == 0) {
+            return PENDING;
+        }
+        return (mask & APPROVER_BITS) == (1 << approvers.length) - 1 ? APPROVED : DECLINED;
+    }
+
+    public DecisionState getDecisionOf(int approverIndex) {
+        int mask = decisionMask;
+        int bit = 1 << approverIndex;
+        if ((mask & bit) != 0) {
+            return APPROVED;
+        }
+        return ((mask >>> DECLINED_SHIFT) & bit) != 0 ? DECLINED : PENDING;
+    }
+
+    /**
+     * True while the loan waits for a decision of the approver.
+     */
+    public boolean isPendingFor(String approverUsername) {
+        int index = indexOf(approverUsername);
+        return index >= 0 && (decisionMask & COMPLETED) == 0 && getDecisionOf(index) == PENDING;
+    }
+
+    public Amount getLoanAmount() {
+        return Amount.ofCents(loanAmountCents);
+    }
+
+    public String getCustomerId() {
+        return CustomerId.decode(customerCode);
+    }
+
+    private int indexOf(String approverUsername) {
+        for (int i = 0; i < approvers.length; i++) {
+            if (approvers[i].equals(approverUsername)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanRecord{" +
+                "customerId='" + getCustomerId() + '\'' +
+                ", loanAmount=" + getLoanAmount() +
+                ", uuid=" + uuid +
+                ", decisionState=" + getDecisionState() +
+                '}';
+    }
+}
@@ -1,12 +1,18 @@
 package com.example.loans.model;
 
+import com.example.loans.finance.Amount;
+import com.example.loans.finance.AmountDistribution;
+import com.example.loans.finance.AmountSummaryStatistics;
 import com.example.loans.finance.BigDecimalSummaryStatistics;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 @Builder
 @AllArgsConstructor
@@ -23,9 +29,30 @@ public class Statistics {
     private final BigDecimal max;
     @Getter
     private final BigDecimal min;
+    /**
+     * Percentiles and distribution only when asked for.
+     */
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final BigDecimal p50;
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final BigDecimal p90;
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final BigDecimal p99;
+    /**
+     * Every distinct amount with its count, ascending.
+     */
+    @Getter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final List<AmountCount> distribution;
 
     public static Statistics calculate(Collection<BigDecimal> amounts) {
-        BigDecimalSummaryStatistics statistics = amounts.stream().collect(BigDecimalSummaryStatistics.statistics());
+        return of(amounts.stream().collect(BigDecimalSummaryStatistics.statistics()));
+    }
+
+    public static Statistics of(BigDecimalSummaryStatistics statistics) {
         return Statistics.builder()
                 .count(statistics.getCount())
                 .sum(statistics.getSum())
@@ -35,6 +62,46 @@ public class Statistics {
                 .build();
     }
 
+    /**
+     * Amounts are rendered with 2 fraction digits, avg is rounded half-even to whole cents.
+     *
+     * @param statistics
+     * @return
+     */
+    public static Statistics of(AmountSummaryStatistics statistics) {
+        return Statistics.builder()
+                .count(statistics.getCount())
+                .sum(Amount.toBigDecimal(statistics.getSum()))
+                .avg(Amount.toBigDecimal(statistics.getAvg()))
+                .max(Amount.toBigDecimal(statistics.getMax()))
+                .min(Amount.toBigDecimal(statistics.getMin()))
+                .build();
+    }
+
+    /**
+     * Adds nearest-rank percentiles and the exact distribution, both read from the per-cent counts.
+     *
+     * @param statistics
+     * @param distribution
+     * @return
+     */
+    public static Statistics of(AmountSummaryStatistics statistics, AmountDistribution distribution) {
+        long[] percentiles = distribution.percentiles(500, 900, 990);
+        List<AmountCount> counts = new ArrayList<>();
+        distribution.forEach((cents, count) -> counts.add(new AmountCount(Amount.toBigDecimal(cents), count)));
+        return Statistics.builder()
+                .count(statistics.getCount())
+                .sum(Amount.toBigDecimal(statistics.getSum()))
+                .avg(Amount.toBigDecimal(statistics.getAvg()))
+                .max(Amount.toBigDecimal(statistics.getMax()))
+                .min(Amount.toBigDecimal(statistics.getMin()))
+                .p50(Amount.toBigDecimal(percentiles[0]))
+                .p90(Amount.toBigDecimal(percentiles[1]))
+                .p99(Amount.toBigDecimal(percentiles[2]))
+                .distribution(counts)
+                .build();
+    }
+
     @Override
     public String toString() {
         return "Statistics{" +
@@ -43,6 +110,7 @@ public class Statistics {
                 ", avg=" + avg +
                 ", max=" + max +
                 ", min=" + min +
+                (p50 == null ? "" : ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99) +
                 '}';
     }
 }
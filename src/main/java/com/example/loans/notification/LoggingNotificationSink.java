@@ -0,0 +1,26 @@
+package com.example.loans.notification;
+
+import com.example.loans.finance.Amount;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default sink, logs the notifications. Another sink is plugged in by declaring it as a {@code @Primary} bean.
+ */
+@Slf4j
+@Component
+public class LoggingNotificationSink implements NotificationSink {
+
+    @Override
+    public void deliver(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            log.info("Sending notification to customer: {}, decision: {}, amount: {}, approvers: [{}]",
+                    notification.getCustomerId(),
+                    notification.getDecisionState(),
+                    Amount.ofCents(notification.getLoanAmountCents()),
+                    String.join(", ", notification.getApprovers()));
+        }
+    }
+}
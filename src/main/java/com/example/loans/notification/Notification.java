@@ -0,0 +1,32 @@
+package com.example.loans.notification;
+
+import com.example.loans.model.DecisionState;
+import com.example.loans.model.LoanRecord;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Message sent to the customer of a completed loan. Detached from LoanRecord,
+ * so it can be spilled to disk and delivered after the record was compacted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Notification {
+    private String customerId;
+    private DecisionState decisionState;
+    private long loanAmountCents;
+    private List<String> approvers;
+    @JsonIgnore
+    private long enqueuedNanos;
+
+    public static Notification of(LoanRecord loanRecord) {
+        return new Notification(loanRecord.getCustomerId(), loanRecord.getDecisionState(),
+                loanRecord.getLoanAmountCents(), Arrays.asList(loanRecord.getApprovers()), System.nanoTime());
+    }
+}
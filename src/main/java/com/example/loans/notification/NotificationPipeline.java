@@ -0,0 +1,418 @@
+package com.example.loans.notification;
+
+import com.example.loans.model.LoanRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Customer notifications of completed loans. A bounded queue is drained by one dispatcher thread,
+ * which hands batches to the {@link NotificationSink} and retries failed batches with exponential backoff.
+ * When the queue is full the {@link OverflowPolicy} decides between waiting, dropping and spilling to disk.
+ * <p>
+ * Spilled notifications are replayed one batch after every batch taken from the queue, and continuously while the
+ * queue is idle, so a sustained overflow does not hold them back.
+ * <p>
+ * BLOCK would park a Netty event loop in the reactive mode, so the {@code reactive} profile defaults to SPILL,
+ * and reactive handlers leave the event loop when BLOCK is configured anyway.
+ */
+@Slf4j
+@Component
+public class NotificationPipeline {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final NotificationSink sink;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<Notification> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Path spillFile;
+
+    private final Object spillLock = new Object();
+    private Writer spillWriter;
+    /**
+     * Spilled notifications not replayed yet, in the spill file and the rest of the replay file.
+     */
+    private long spillBacklog;
+    /**
+     * Open replay file, dispatcher thread only.
+     */
+    private BufferedReader replayReader;
+    private int replayLine;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong totalDispatchLatencyNanos = new AtomicLong();
+    private volatile long maxDispatchLatencyNanos;
+
+    private volatile boolean running;
+    private volatile boolean stopped;
+    private Thread dispatcher;
+
+    public NotificationPipeline(NotificationSink sink,
+                                ObjectMapper objectMapper,
+                                @Value("${app.notification.capacity:10000}") int capacity,
+                                @Value("${app.notification.overflow:BLOCK}") OverflowPolicy overflowPolicy,
+                                @Value("${app.notification.batch-size:100}") int batchSize,
+                                @Value("${app.notification.max-attempts:5}") int maxAttempts,
+                                @Value("${app.notification.retry-backoff:100ms}") Duration retryBackoff,
+                                @Value("${app.notification.spill-file:${java.io.tmpdir}/loan-notifications-${app.node-id:0}.spill}") String spillFile) {
+        this.sink = sink;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.spillFile = Paths.get(spillFile);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            // a replay file is left behind when the node stopped during a replay
+            synchronized (spillLock) {
+                spillBacklog = countLines(spillFile) + countLines(replayFile());
+            }
+            if (spillBacklog > 0) {
+                log.info("Found {} spilled notifications in {}", spillBacklog, spillFile);
+            }
+        }
+        log.info("Starting notification pipeline, capacity {}, overflow {}, batch size {}",
+                queue.remainingCapacity(), overflowPolicy, batchSize);
+        running = true;
+        dispatcher = new Thread(this::dispatch, "notification-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Stops accepting new work and lets the dispatcher deliver what is already queued.
+     * Notifications submitted afterwards are spilled for the next start with SPILL overflow, otherwise dropped and counted.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopped = true;
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+            dispatcher.interrupt();
+        }
+        synchronized (spillLock) {
+            closeSpillWriter();
+        }
+        log.info("Notification pipeline stopped, {} notifications left in queue", queue.size());
+    }
+
+    public void submit(LoanRecord loanRecord) {
+        enqueue(Notification.of(loanRecord));
+    }
+
+    /**
+     * Enqueues notifications of several completed loans at once, e.g. all loans completed by a decision batch.
+     *
+     * @param loanRecords
+     */
+    public void submitAll(List<LoanRecord> loanRecords) {
+        for (LoanRecord loanRecord : loanRecords) {
+            enqueue(Notification.of(loanRecord));
+        }
+    }
+
+    private void enqueue(Notification notification) {
+        submitted.incrementAndGet();
+        if (stopped) {
+            if (overflowPolicy == OverflowPolicy.SPILL) {
+                spill(notification);
+            } else {
+                dropped.incrementAndGet();
+                log.warn("Notification pipeline is stopped, dropped notification for customer: {}", notification.getCustomerId());
+            }
+            return;
+        }
+        if (queue.offer(notification)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(notification);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                    log.warn("Interrupted while waiting for notification queue, dropped notification for customer: {}",
+                            notification.getCustomerId());
+                }
+                break;
+            case SHED:
+                dropped.incrementAndGet();
+                log.warn("Notification queue is full, dropped notification for customer: {}", notification.getCustomerId());
+                break;
+            case SPILL:
+                spill(notification);
+                break;
+        }
+    }
+
+    /**
+     * Appends the notification to the spill file. The writer stays open until the next replay moves the file aside
+     * or the pipeline stops.
+     */
+    private void spill(Notification notification) {
+        synchronized (spillLock) {
+            try {
+                if (spillWriter == null) {
+                    spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                spillWriter.write(objectMapper.writeValueAsString(notification));
+                spillWriter.write('\n');
+                spillWriter.flush();
+                spillBacklog++;
+                spilled.incrementAndGet();
+                if (stopped) {
+                    // stop() has closed the writer already
+                    closeSpillWriter();
+                }
+            } catch (IOException e) {
+                dropped.incrementAndGet();
+                log.error("Cannot spill notification for customer: {} to {}", notification.getCustomerId(), spillFile, e);
+                closeSpillWriter();
+            }
+        }
+    }
+
+    private void closeSpillWriter() {
+        if (spillWriter == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+        } catch (IOException e) {
+            log.error("Cannot close spill file {}", spillFile, e);
+        }
+        spillWriter = null;
+    }
+
+    private void dispatch() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Notification first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - 1);
+                        deliver(batch);
+                        batch.clear();
+                    }
+                    // one spilled batch after every queue batch, so spilled notifications do not wait for an idle queue
+                    replaySpilled();
+                } catch (InterruptedException e) {
+                    log.warn("Notification dispatcher interrupted, {} notifications left in queue", queue.size());
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Notification dispatcher failure", e);
+                    batch.clear();
+                }
+            }
+        } finally {
+            closeReplayReader();
+        }
+    }
+
+    /**
+     * Delivers the next batch of spilled notifications, if any. The spill file is moved aside when a replay starts,
+     * so producers keep spilling into a fresh file meanwhile. A replay file left over from an earlier replay
+     * is appended to, not replaced, and lines that do not parse are skipped. Delivery is at least once:
+     * a replay cut short by a stop starts over from the beginning of the replay file.
+     */
+    private void replaySpilled() throws InterruptedException {
+        Path replay = replayFile();
+        if (replayReader == null) {
+            synchronized (spillLock) {
+                if (spillBacklog == 0) {
+                    return;
+                }
+                closeSpillWriter();
+                try {
+                    if (Files.exists(spillFile) && Files.exists(replay)) {
+                        try (OutputStream out = Files.newOutputStream(replay, StandardOpenOption.APPEND)) {
+                            Files.copy(spillFile, out);
+                        }
+                        Files.delete(spillFile);
+                    } else if (Files.exists(spillFile)) {
+                        Files.move(spillFile, replay);
+                    } else if (!Files.exists(replay)) {
+                        spillBacklog = 0;
+                        return;
+                    }
+                    replayReader = Files.newBufferedReader(replay, StandardCharsets.UTF_8);
+                    replayLine = 0;
+                } catch (IOException e) {
+                    log.error("Cannot move spill file {} to {}", spillFile, replay, e);
+                    return;
+                }
+            }
+        }
+
+        List<Notification> batch = new ArrayList<>(batchSize);
+        try {
+            String line = null;
+            while (batch.size() < batchSize && (line = replayReader.readLine()) != null) {
+                replayLine++;
+                synchronized (spillLock) {
+                    spillBacklog = Math.max(0, spillBacklog - 1);
+                }
+                try {
+                    Notification notification = objectMapper.readValue(line, Notification.class);
+                    notification.setEnqueuedNanos(System.nanoTime());
+                    batch.add(notification);
+                } catch (JsonProcessingException e) {
+                    failed.incrementAndGet();
+                    log.error("Skipping malformed spilled notification at {}:{}: {}", replay, replayLine, e.getOriginalMessage());
+                }
+            }
+            if (!batch.isEmpty()) {
+                deliver(batch);
+            }
+            if (line == null) {
+                closeReplayReader();
+                Files.delete(replay);
+            }
+        } catch (IOException e) {
+            log.error("Cannot replay spilled notifications from {}", replay, e);
+            closeReplayReader();
+        }
+    }
+
+    private void closeReplayReader() {
+        if (replayReader == null) {
+            return;
+        }
+        try {
+            replayReader.close();
+        } catch (IOException e) {
+            log.error("Cannot close spill replay file {}", replayFile(), e);
+        }
+        replayReader = null;
+    }
+
+    private Path replayFile() {
+        return spillFile.resolveSibling(spillFile.getFileName() + ".replay");
+    }
+
+    private static long countLines(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.count();
+        }
+    }
+
+    private void deliver(List<Notification> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sink.deliver(batch);
+                long now = System.nanoTime();
+                for (Notification notification : batch) {
+                    long latency = now - notification.getEnqueuedNanos();
+                    totalDispatchLatencyNanos.addAndGet(latency);
+                    maxDispatchLatencyNanos = Math.max(maxDispatchLatencyNanos, latency);
+                }
+                delivered.addAndGet(batch.size());
+                return;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    failed.addAndGet(batch.size());
+                    log.error("Giving up delivery of {} notifications after {} attempts", batch.size(), attempt, e);
+                    return;
+                }
+                retries.incrementAndGet();
+                long backoff = retryBackoff.toMillis() << (attempt - 1);
+                log.warn("Delivery of {} notifications failed, attempt {}, retrying in {}ms: {}",
+                        batch.size(), attempt, backoff, e.getMessage());
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getSpilled() {
+        return spilled.get();
+    }
+
+    public long getSpillBacklog() {
+        synchronized (spillLock) {
+            return spillBacklog;
+        }
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getMaxDispatchLatencyNanos() {
+        return maxDispatchLatencyNanos;
+    }
+
+    public long getAverageDispatchLatencyNanos() {
+        long count = delivered.get();
+        return count == 0 ? 0 : totalDispatchLatencyNanos.get() / count;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.loans.notification;
+
+import java.util.List;
+
+/**
+ * Delivers customer notifications. Called by a single dispatcher thread with batches of up to
+ * {@code app.notification.batch-size} notifications; a thrown exception makes the whole batch retried.
+ */
+public interface NotificationSink {
+
+    void deliver(List<Notification> notifications) throws Exception;
+}
@@ -0,0 +1,13 @@
+package com.example.loans.notification;
+
+/**
+ * What {@link NotificationPipeline} does with a notification when its queue is full.
+ */
+public enum OverflowPolicy {
+    /** The completing request waits for free space. */
+    BLOCK,
+    /** The notification is dropped and counted. */
+    SHED,
+    /** The notification is appended to the spill file and delivered once the queue drains. */
+    SPILL
+}
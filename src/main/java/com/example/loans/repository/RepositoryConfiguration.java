@@ -1,11 +1,18 @@
 package com.example.loans.repository;
 
-import com.example.loans.model.ApprovalRequest;
-import com.example.loans.model.Decision;
+import com.example.loans.dao.LongConcurrentHashMap;
+import com.example.loans.finance.SlidingWindowStatistics;
 import com.example.loans.model.EventKey;
+import com.example.loans.model.LoanRecord;
+import com.example.loans.snapshot.SnapshotHeader;
+import com.example.loans.snapshot.SnapshotStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -13,13 +20,40 @@ import java.util.concurrent.ConcurrentSkipListMap;
 @Configuration
 public class RepositoryConfiguration {
 
+    /**
+     * Pre-sized from the newest snapshot header, if any, so the restore does not resize while loading.
+     */
     @Bean
-    public ConcurrentSkipListMap<EventKey, UUID> events() {
+    public LongConcurrentHashMap<LoanRecord> pendingLoans(ObjectProvider<SnapshotStore> snapshotStore) {
+        int pending = latestHeader(snapshotStore).map(SnapshotHeader::getPendingCount).orElse(0);
+        return new LongConcurrentHashMap<>(64, Math.max(1024, pending + pending / 4));
+    }
+
+    @Bean
+    public ConcurrentHashMap<UUID, LoanRecord> loanHistory(ObjectProvider<SnapshotStore> snapshotStore) {
+        int completed = latestHeader(snapshotStore).map(SnapshotHeader::getCompletionCount).orElse(0);
+        return new ConcurrentHashMap<>(Math.max(16, completed + completed / 4));
+    }
+
+    @Bean
+    public ConcurrentSkipListMap<EventKey, LoanRecord> completions() {
         return new ConcurrentSkipListMap<>();
     }
 
+    /**
+     * Statistics window long enough for {@code app.statistics.max-window}, and for the default period.
+     * {@code app.statistics.histogram} keeps per-cent amount histograms for percentiles.
+     */
     @Bean
-    public ConcurrentHashMap<ApprovalRequest, ConcurrentHashMap<String, Decision>> storage() {
-         return new ConcurrentHashMap<>();
+    public SlidingWindowStatistics contractStatistics(@Value("${app.statistics.period:60s}") Duration statisticsPeriod,
+                                                      @Value("${app.statistics.max-window:1h}") Duration statisticsMaxWindow,
+                                                      @Value("${app.statistics.histogram:true}") boolean histogram) {
+        return new SlidingWindowStatistics(statisticsMaxWindow.compareTo(statisticsPeriod) > 0 ? statisticsMaxWindow : statisticsPeriod,
+                histogram);
+    }
+
+    private static Optional<SnapshotHeader> latestHeader(ObjectProvider<SnapshotStore> snapshotStore) {
+        SnapshotStore store = snapshotStore.getIfAvailable();
+        return store == null ? Optional.empty() : store.latestHeader();
     }
 }
@@ -1,56 +1,616 @@
 package com.example.loans.service;
 
+import com.example.loans.cluster.ClusterClient;
 import com.example.loans.dao.LoanRepository;
-import com.example.loans.dto.DecisionDto;
-import com.example.loans.dto.LoanApprovalRequestDto;
+import com.example.loans.dto.*;
+import com.example.loans.exception.BusinessRuleException;
+import com.example.loans.exception.InvalidRequestException;
+import com.example.loans.feed.ChangeEvent;
+import com.example.loans.feed.ChangeFeed;
+import com.example.loans.finance.Amount;
+import com.example.loans.finance.AmountDistribution;
+import com.example.loans.finance.AmountSummaryStatistics;
 import com.example.loans.model.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.example.loans.model.DecisionState.PENDING;
 
 @Service
 public class LoanService {
 
+    private static final String APPROVAL_REQUEST_PATH = "/api/loans/approval-request";
+    private static final String APPROVAL_REQUEST_BATCH_PATH = "/api/loans/approval-request/batch";
+    private static final String DECISION_PATH = "/api/loans/decision";
+    private static final String DECISION_BATCH_PATH = "/api/loans/decision/batch";
+    private static final String STATISTICS_PATH = "/api/loans/statistics";
+    private static final String APPROVERS_PATH = "/api/loans/approvers/";
+    private static final String HISTORY_PATH = "/api/loans/history";
+    public static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     LoanRepository loanRepository;
 
+    @Autowired(required = false)
+    ClusterClient cluster;
+
+    @Autowired(required = false)
+    ChangeFeed changeFeed;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
     @Value("${app.statistics.period:60s}")
     Duration statisticsPeriod;
 
+    @Value("${app.batch.max-size:10000}")
+    int batchMaxSize;
+
     public void saveApproval(LoanApprovalRequestDto dto) {
+        saveApproval(dto, false);
+    }
+
+    /**
+     * In cluster mode the request is forwarded to the node owning the customer.
+     *
+     * @param dto
+     * @param fromPeer true if another node forwarded the request, it is then saved here
+     */
+    public void saveApproval(LoanApprovalRequestDto dto, boolean fromPeer) {
+        if (isRemote(dto.getCustomerId(), fromPeer)) {
+            cluster.forward(cluster.ownerOf(dto.getCustomerId()), APPROVAL_REQUEST_PATH, dto, ResponseDto.class);
+            return;
+        }
+        loanRepository.saveAsPending(toApprovalRequest(dto, ZonedDateTime.now()));
+    }
+
+    /**
+     * True if calls may wait: in cluster mode for a peer node, otherwise see {@link LoanRepository#mayBlock()}.
+     */
+    public boolean mayBlock() {
+        return cluster != null || loanRepository.mayBlock();
+    }
+
+    /**
+     * Validates and saves every item on its own. Invalid items and duplicates are reported per item
+     * and do not fail the rest of the batch.
+     *
+     * @param dtos
+     * @return
+     */
+    public BatchResultDto saveApprovals(List<LoanApprovalRequestDto> dtos) {
+        return saveApprovals(dtos, false);
+    }
+
+    /**
+     * In cluster mode valid items of customers owned by other nodes are forwarded to them as sub-batches.
+     *
+     * @param dtos
+     * @param fromPeer true if another node forwarded the batch, all items are then saved here
+     * @return
+     */
+    public BatchResultDto saveApprovals(List<LoanApprovalRequestDto> dtos, boolean fromPeer) {
+        checkBatchSize(dtos.size());
+        return saveApprovals(dtos, new String[dtos.size()], fromPeer);
+    }
+
+    /**
+     * Same as {@link #saveApprovals(List)} for newline delimited JSON, one request per line.
+     * A malformed line is reported as an INVALID item.
+     *
+     * @param ndjson
+     * @return
+     * @throws IOException
+     */
+    public BatchResultDto saveApprovals(InputStream ndjson) throws IOException {
+        return saveApprovals(ndjson, false);
+    }
+
+    public BatchResultDto saveApprovals(InputStream ndjson, boolean fromPeer) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(LoanApprovalRequestDto.class);
+        List<LoanApprovalRequestDto> dtos = new ArrayList<>();
+        List<String> parseErrors = new ArrayList<>();
+
+        BufferedReader lines = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            checkBatchSize(dtos.size() + 1);
+            try {
+                dtos.add(reader.readValue(line));
+                parseErrors.add(null);
+            } catch (JsonProcessingException e) {
+                dtos.add(null);
+                parseErrors.add("Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        return saveApprovals(dtos, parseErrors.toArray(new String[0]), fromPeer);
+    }
+
+    private BatchResultDto saveApprovals(List<LoanApprovalRequestDto> dtos, String[] parseErrors, boolean fromPeer) {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<BatchItemResultDto> results = new ArrayList<>(dtos.size());
+        List<LoanApprovalRequestDto> acceptedDtos = new ArrayList<>(dtos.size());
+        List<BatchItemResultDto> acceptedResults = new ArrayList<>(dtos.size());
+
+        for (int i = 0; i < dtos.size(); i++) {
+            LoanApprovalRequestDto dto = dtos.get(i);
+            String errors = dto == null
+                    ? (parseErrors[i] != null ? parseErrors[i] : "Approval request must not be null")
+                    : validate(dto);
+            if (errors != null) {
+                results.add(new BatchItemResultDto(i, dto == null ? null : dto.getCustomerId(), BatchItemStatus.INVALID, errors));
+            } else {
+                BatchItemResultDto result = new BatchItemResultDto(i, dto.getCustomerId(), BatchItemStatus.CREATED, null);
+                results.add(result);
+                acceptedDtos.add(dto);
+                acceptedResults.add(result);
+            }
+        }
+
+        Map<Integer, List<Integer>> byOwner = byOwner(acceptedResults, fromPeer);
+        for (Map.Entry<Integer, List<Integer>> owner : byOwner.entrySet()) {
+            List<Integer> items = owner.getValue();
+            if (owner.getKey() != self()) {
+                copyResults(cluster.forward(owner.getKey(), APPROVAL_REQUEST_BATCH_PATH, select(acceptedDtos, items), BatchResultDto.class),
+                        items, acceptedResults);
+                continue;
+            }
+            List<LoanApprovalRequest> accepted = new ArrayList<>(items.size());
+            items.forEach(i -> accepted.add(toApprovalRequest(acceptedDtos.get(i), now)));
+            boolean[] saved = loanRepository.saveAllAsPending(accepted);
+            for (int i = 0; i < saved.length; i++) {
+                if (!saved[i]) {
+                    acceptedResults.get(items.get(i)).setStatus(BatchItemStatus.DUPLICATE_PENDING);
+                    acceptedResults.get(items.get(i)).setMessage("Attempt to save duplicate pending LoanApprovalRequest");
+                }
+            }
+        }
+        return toBatchResult(results, EnumSet.of(BatchItemStatus.CREATED));
+    }
+
+    /**
+     * Bean validation of a request body for callers without Spring MVC argument validation.
+     *
+     * @param dto
+     * @throws InvalidRequestException with the same "field, message" errors as MethodArgumentNotValidException
+     */
+    public void requireValid(Object dto) {
+        String errors = validate(dto);
+        if (errors != null) {
+            throw new InvalidRequestException(errors);
+        }
+    }
+
+    private String validate(Object dto) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ", " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > batchMaxSize) {
+            throw new BusinessRuleException("Batch size exceeds the limit of " + batchMaxSize + " items");
+        }
+    }
+
+    private LoanApprovalRequest toApprovalRequest(LoanApprovalRequestDto dto, ZonedDateTime timestamp) {
         Set<Approver> approvers = new HashSet<>();
         dto.getApprovers().forEach(approver -> approvers.add(new Approver(approver)));
 
-        LoanApprovalRequest approvalRequest = LoanApprovalRequest.builder()
+        return LoanApprovalRequest.builder()
                 .customerId(dto.getCustomerId())
-                .loanAmount(dto.getLoanAmount())
+                .loanAmount(Amount.of(dto.getLoanAmount()))
                 .approvers(approvers)
                 .decisionState(PENDING)
-                .timestamp(ZonedDateTime.now())
+                .timestamp(timestamp)
                 .build();
+    }
 
-        approvalRequest.setTimestamp(ZonedDateTime.now());
+    public void makeDecision(DecisionDto dto) {
+        makeDecision(dto, false);
+    }
 
-        loanRepository.saveAsPending(approvalRequest);
+    /**
+     * In cluster mode the decision is forwarded to the node owning the customer.
+     *
+     * @param dto
+     * @param fromPeer true if another node forwarded the decision, it is then saved here
+     */
+    public void makeDecision(DecisionDto dto, boolean fromPeer) {
+        if (isRemote(dto.getCustomerId(), fromPeer)) {
+            cluster.forward(cluster.ownerOf(dto.getCustomerId()), DECISION_PATH, dto, ResponseDto.class);
+            return;
+        }
+        loanRepository.save(toDecision(dto));
     }
 
-    public void makeDecision(DecisionDto dto) {
-        Decision decision = Decision.builder()
+    /**
+     * Validates every decision on its own and saves the valid ones together, grouped by customer.
+     * Every decision gets its own status, rejected decisions do not fail the rest of the batch.
+     *
+     * @param dtos
+     * @return
+     */
+    public BatchResultDto makeDecisions(List<DecisionDto> dtos) {
+        return makeDecisions(dtos, false);
+    }
+
+    /**
+     * In cluster mode valid decisions of customers owned by other nodes are forwarded to them as sub-batches.
+     *
+     * @param dtos
+     * @param fromPeer true if another node forwarded the batch, all decisions are then saved here
+     * @return
+     */
+    public BatchResultDto makeDecisions(List<DecisionDto> dtos, boolean fromPeer) {
+        checkBatchSize(dtos.size());
+        List<BatchItemResultDto> results = new ArrayList<>(dtos.size());
+        List<DecisionDto> acceptedDtos = new ArrayList<>(dtos.size());
+        List<BatchItemResultDto> acceptedResults = new ArrayList<>(dtos.size());
+
+        for (int i = 0; i < dtos.size(); i++) {
+            DecisionDto dto = dtos.get(i);
+            String errors = dto == null ? "Decision must not be null" : validate(dto);
+            if (errors == null && PENDING.name().equals(dto.getState())) {
+                errors = "PENDING decisions cannot be saved";
+            }
+            if (errors != null) {
+                results.add(new BatchItemResultDto(i, dto == null ? null : dto.getCustomerId(), BatchItemStatus.INVALID, errors));
+            } else {
+                BatchItemResultDto result = new BatchItemResultDto(i, dto.getCustomerId(), BatchItemStatus.SAVED, null);
+                results.add(result);
+                acceptedDtos.add(dto);
+                acceptedResults.add(result);
+            }
+        }
+
+        Map<Integer, List<Integer>> byOwner = byOwner(acceptedResults, fromPeer);
+        for (Map.Entry<Integer, List<Integer>> owner : byOwner.entrySet()) {
+            List<Integer> items = owner.getValue();
+            if (owner.getKey() != self()) {
+                copyResults(cluster.forward(owner.getKey(), DECISION_BATCH_PATH, select(acceptedDtos, items), BatchResultDto.class),
+                        items, acceptedResults);
+                continue;
+            }
+            List<Decision> accepted = new ArrayList<>(items.size());
+            items.forEach(i -> accepted.add(toDecision(acceptedDtos.get(i))));
+            LoanRecord.Outcome[] outcomes = loanRepository.saveAll(accepted);
+            for (int i = 0; i < outcomes.length; i++) {
+                BatchItemResultDto result = acceptedResults.get(items.get(i));
+                switch (outcomes[i]) {
+                    case RECORDED:
+                        break;
+                    case APPROVED:
+                    case DECLINED:
+                        result.setStatus(BatchItemStatus.COMPLETED);
+                        result.setMessage("Loan " + outcomes[i] + " for clientId: " + result.getCustomerId());
+                        break;
+                    case UNKNOWN_APPROVER:
+                        result.setStatus(BatchItemStatus.UNKNOWN_APPROVER);
+                        result.setMessage(accepted.get(i).getApproverUsername() + " is not an approver for customerId: " + result.getCustomerId());
+                        break;
+                    default:
+                        result.setStatus(BatchItemStatus.NOT_FOUND);
+                        result.setMessage("There is no related ApprovalRequest with customerId: " + result.getCustomerId());
+                        break;
+                }
+            }
+        }
+        return toBatchResult(results, EnumSet.of(BatchItemStatus.SAVED, BatchItemStatus.COMPLETED));
+    }
+
+    private Decision toDecision(DecisionDto dto) {
+        return Decision.builder()
                 .customerId(dto.getCustomerId())
                 .approverUsername(dto.getApproverUsername())
                 .state(DecisionState.valueOf(dto.getState()))
                 .build();
-        loanRepository.save(decision);
     }
 
     public Statistics getStatistics() {
-        return loanRepository.getStatistics(statisticsPeriod);
+        return getStatistics(false);
+    }
+
+    /**
+     * In cluster mode the statistics of every node are requested in parallel and merged with the local ones.
+     *
+     * @param fromPeer true if another node asks, only the local statistics are returned then
+     * @return
+     */
+    public Statistics getStatistics(boolean fromPeer) {
+        return getStatistics(null, false, fromPeer);
+    }
+
+    /**
+     * Statistics of the given window instead of {@code app.statistics.period}.
+     *
+     * @param window e.g. {@code 5m}, {@code 1h} or {@code PT90S}, plain numbers are seconds. Null for the default period
+     * @param histogram also p50, p90, p99 and the distribution of amounts
+     * @param fromPeer true if another node asks, only the local statistics are returned then
+     * @return
+     * @throws BusinessRuleException if the window is not a duration of 1 second up to {@code app.statistics.max-window}
+     */
+    public Statistics getStatistics(String window, boolean histogram, boolean fromPeer) {
+        Duration period = toStatisticsPeriod(window);
+        Statistics local = loanRepository.getStatistics(period, histogram);
+        if (cluster == null || fromPeer) {
+            return local;
+        }
+        AmountSummaryStatistics merged = ClusterClient.toSummary(local);
+        AmountDistribution distribution = histogram ? ClusterClient.toDistribution(local) : null;
+        cluster.peerStatistics(STATISTICS_PATH + "?window=" + period.getSeconds() + "s&histogram=" + histogram, distribution)
+                .forEach(merged::merge);
+        return histogram ? Statistics.of(merged, distribution) : Statistics.of(merged);
+    }
+
+    /**
+     * Loans waiting for the approver's decision, in customerId order.
+     * In cluster mode every node returns its own page after the same customerId and the pages are merged,
+     * so a page holds the first {@code limit} loans of the whole cluster.
+     *
+     * @param approver
+     * @param after customerId of the last loan of the previous page, null for the first page
+     * @param limit page size, 1 to {@link #MAX_PAGE_SIZE}
+     * @param fromPeer true if another node asks, only the local loans are returned then
+     * @return
+     * @throws BusinessRuleException if {@code after} is not a customerId or the limit is out of range
+     */
+    public PendingPageDto getPendingFor(String approver, String after, int limit, boolean fromPeer) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BusinessRuleException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (after != null) {
+            try {
+                CustomerId.encode(after);
+            } catch (IllegalArgumentException e) {
+                throw new BusinessRuleException(e.getMessage());
+            }
+        }
+        List<PendingLoanDto> loans = new ArrayList<>();
+        boolean more = false;
+        for (LoanRecord loanRecord : loanRepository.getPendingFor(approver, after, limit + 1)) {
+            loans.add(new PendingLoanDto(loanRecord.getCustomerId(), loanRecord.getLoanAmount().toBigDecimal(),
+                    loanRecord.getTimestamp(), Arrays.asList(loanRecord.getApprovers())));
+        }
+        if (cluster != null && !fromPeer) {
+            UriComponentsBuilder uri = UriComponentsBuilder.fromPath(APPROVERS_PATH + "{approver}/pending")
+                    .queryParam("limit", limit);
+            if (after != null) {
+                uri.queryParam("after", after);
+            }
+            String path = uri.buildAndExpand(approver).encode().toUriString();
+            for (PendingPageDto page : cluster.getFromPeers(path, PendingPageDto.class)) {
+                loans.addAll(page.getLoans());
+                more |= page.getNext() != null;
+            }
+            loans.sort(Comparator.comparing(PendingLoanDto::getCustomerId));
+        }
+        if (loans.size() > limit) {
+            loans.subList(limit, loans.size()).clear();
+            more = true;
+        }
+        return new PendingPageDto(loans, more ? loans.get(loans.size() - 1).getCustomerId() : null);
+    }
+
+    /**
+     * Completed loans in completion order, one page after the cursor.
+     * In cluster mode every node returns its own page after the same cursor and the pages are merged.
+     *
+     * @param from ISO date-time, completed at or after it. Null for no lower bound
+     * @param to ISO date-time, completed before it. Null for no upper bound
+     * @param state APPROVED or DECLINED, null for both
+     * @param cursor {@code next} of the previous page, null for the first page
+     * @param limit page size, 1 to {@link #MAX_PAGE_SIZE}
+     * @param fromPeer true if another node asks, only the local loans are returned then
+     * @return
+     * @throws BusinessRuleException if a parameter cannot be parsed or the limit is out of range
+     */
+    public HistoryPageDto getHistory(String from, String to, String state, String cursor, int limit, boolean fromPeer) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BusinessRuleException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        DecisionState decisionState = toFinalState(state);
+        EventKey start = EventKey.first(from == null ? Long.MIN_VALUE : toEpochMillis(from));
+        EventKey end = EventKey.first(to == null ? Long.MAX_VALUE : toEpochMillis(to));
+        if (cursor != null) {
+            EventKey next = toHistoryCursor(cursor).nextKey(self());
+            start = next.compareTo(start) > 0 ? next : start;
+        }
+
+        List<HistoryLoanDto> loans = new ArrayList<>();
+        boolean more = false;
+        for (Map.Entry<EventKey, LoanRecord> completion : loanRepository.getCompletions(start, end, decisionState, limit + 1)) {
+            LoanRecord loanRecord = completion.getValue();
+            loans.add(new HistoryLoanDto(loanRecord.getCustomerId(), loanRecord.getLoanAmount().toBigDecimal(),
+                    loanRecord.getDecisionState(), loanRecord.getTimestamp(),
+                    Instant.ofEpochMilli(completion.getKey().getEpochMillis()).atZone(ZoneOffset.UTC),
+                    Arrays.asList(loanRecord.getApprovers()), HistoryCursor.of(completion.getKey(), self()).encode()));
+        }
+        if (cluster != null && !fromPeer) {
+            Map<String, Object> parameters = new HashMap<>();
+            UriComponentsBuilder uri = UriComponentsBuilder.fromPath(HISTORY_PATH).queryParam("limit", limit);
+            addQueryParam(uri, parameters, "from", from);
+            addQueryParam(uri, parameters, "to", to);
+            addQueryParam(uri, parameters, "state", state);
+            addQueryParam(uri, parameters, "cursor", cursor);
+            for (HistoryPageDto page : cluster.getFromPeers(uri.encode().buildAndExpand(parameters).toUriString(), HistoryPageDto.class)) {
+                loans.addAll(page.getLoans());
+                more |= page.getNext() != null;
+            }
+            loans.sort(Comparator.comparing(loan -> HistoryCursor.decode(loan.getCursor())));
+        }
+        if (loans.size() > limit) {
+            loans.subList(limit, loans.size()).clear();
+            more = true;
+        }
+        return new HistoryPageDto(loans, more ? loans.get(loans.size() - 1).getCursor() : null);
+    }
+
+    /**
+     * Adds the parameter as a template variable, so values like {@code +02:00} offsets are encoded strictly.
+     */
+    private static void addQueryParam(UriComponentsBuilder uri, Map<String, Object> parameters, String name, String value) {
+        if (value != null) {
+            uri.queryParam(name, "{" + name + "}");
+            parameters.put(name, value);
+        }
+    }
+
+    private static long toEpochMillis(String dateTime) {
+        try {
+            return ZonedDateTime.parse(dateTime).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new BusinessRuleException("'" + dateTime + "' is not an ISO date-time, e.g. 2020-10-10T10:10:10Z");
+        }
+    }
+
+    private static DecisionState toFinalState(String state) {
+        if (state == null) {
+            return null;
+        }
+        if (!DecisionState.APPROVED.name().equals(state) && !DecisionState.DECLINED.name().equals(state)) {
+            throw new BusinessRuleException("History state must be APPROVED or DECLINED");
+        }
+        return DecisionState.valueOf(state);
+    }
+
+    private static HistoryCursor toHistoryCursor(String cursor) {
+        try {
+            return HistoryCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessRuleException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Created, decided and completed loans of this node from the offset on, see {@link ChangeFeed}.
+     *
+     * @param from offset of the first event
+     * @param batchSize events per batch
+     * @return
+     * @throws BusinessRuleException if the change feed is off or the batch size is out of range
+     */
+    public Flux<List<ChangeEvent>> streamChanges(long from, int batchSize) {
+        if (changeFeed == null) {
+            throw new BusinessRuleException("Change feed is disabled, see app.feed.enabled");
+        }
+        return changeFeed.stream(from, batchSize);
+    }
+
+    /**
+     * One JSON line per event.
+     */
+    public byte[] toNdjson(List<ChangeEvent> batch) {
+        try {
+            ByteArrayOutputStream lines = new ByteArrayOutputStream(batch.size() * 256);
+            for (ChangeEvent event : batch) {
+                lines.write(objectMapper.writeValueAsBytes(event));
+                lines.write('\n');
+            }
+            return lines.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Duration toStatisticsPeriod(String window) {
+        if (window == null || window.trim().isEmpty()) {
+            return statisticsPeriod;
+        }
+        Duration period;
+        try {
+            period = DurationStyle.detectAndParse(window.trim(), ChronoUnit.SECONDS);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessRuleException("Statistics window '" + window + "' is not a duration");
+        }
+        Duration maxWindow = loanRepository.getStatisticsWindow();
+        if (period.getSeconds() < 1 || period.compareTo(maxWindow) > 0) {
+            throw new BusinessRuleException("Statistics window must be between 1s and " + maxWindow.getSeconds() + "s");
+        }
+        return period;
+    }
+
+    private boolean isRemote(String customerId, boolean fromPeer) {
+        return cluster != null && !fromPeer && !cluster.owns(customerId);
+    }
+
+    private int self() {
+        return cluster == null ? 0 : cluster.getSelf();
+    }
+
+    /**
+     * Positions of the items grouped by the node owning their customer, this node first.
+     * Everything is local without cluster mode and in batches forwarded by another node.
+     */
+    private Map<Integer, List<Integer>> byOwner(List<BatchItemResultDto> items, boolean fromPeer) {
+        Map<Integer, List<Integer>> byOwner = new LinkedHashMap<>();
+        byOwner.put(self(), new ArrayList<>());
+        for (int i = 0; i < items.size(); i++) {
+            int owner = isRemote(items.get(i).getCustomerId(), fromPeer) ? cluster.ownerOf(items.get(i).getCustomerId()) : self();
+            byOwner.computeIfAbsent(owner, o -> new ArrayList<>()).add(i);
+        }
+        return byOwner;
+    }
+
+    private static <T> List<T> select(List<T> list, List<Integer> positions) {
+        List<T> selected = new ArrayList<>(positions.size());
+        positions.forEach(i -> selected.add(list.get(i)));
+        return selected;
+    }
+
+    /**
+     * Copies the per item results of a sub-batch answered by another node into the results of this batch.
+     */
+    private static void copyResults(BatchResultDto remote, List<Integer> positions, List<BatchItemResultDto> results) {
+        for (BatchItemResultDto remoteResult : remote.getResults()) {
+            BatchItemResultDto result = results.get(positions.get(remoteResult.getIndex()));
+            result.setStatus(remoteResult.getStatus());
+            result.setMessage(remoteResult.getMessage());
+        }
+    }
+
+    private static BatchResultDto toBatchResult(List<BatchItemResultDto> results, Set<BatchItemStatus> succeededStatuses) {
+        int succeeded = 0;
+        for (BatchItemResultDto result : results) {
+            if (succeededStatuses.contains(result.getStatus())) {
+                succeeded++;
+            }
+        }
+        return new BatchResultDto(succeeded, results.size() - succeeded, results);
     }
 }
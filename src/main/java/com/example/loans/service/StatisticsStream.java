@@ -0,0 +1,62 @@
+package com.example.loans.service;
+
+import com.example.loans.dao.LoanRepository;
+import com.example.loans.model.Statistics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics of the default period for any number of subscribers. Every {@code app.statistics.stream.check-interval}
+ * one shared pipeline checks whether contracts were sent; statistics are then computed once and pushed to everyone,
+ * and at least every {@code app.statistics.stream.tick} so windows can slide. Nothing is computed without subscribers.
+ * <p>
+ * The latest update is replayed to new subscribers. A subscriber reading slower than updates arrive skips to the latest
+ * one instead of buffering, so a slow browser never holds memory or delays the others.
+ */
+@Slf4j
+@Component
+public class StatisticsStream {
+
+    private final Flux<ServerSentEvent<Statistics>> updates;
+
+    public StatisticsStream(LoanService loanService,
+                            LoanRepository loanRepository,
+                            @Value("${app.statistics.stream.tick:1s}") Duration tick,
+                            @Value("${app.statistics.stream.check-interval:100ms}") Duration checkInterval) {
+        long checksPerTick = Math.max(1, tick.toMillis() / Math.max(1, checkInterval.toMillis()));
+        AtomicLong lastContractsSent = new AtomicLong();
+        AtomicLong updateId = new AtomicLong();
+        this.updates = Flux.interval(Duration.ZERO, checkInterval, Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .filter(check -> {
+                    long contractsSent = loanRepository.getContractsSent();
+                    return lastContractsSent.getAndSet(contractsSent) != contractsSent || check % checksPerTick == 0;
+                })
+                .concatMap(check -> Mono.fromCallable(loanService::getStatistics)
+                        .map(statistics -> ServerSentEvent.builder(statistics)
+                                .id(String.valueOf(updateId.incrementAndGet()))
+                                .event("statistics")
+                                .build())
+                        .onErrorResume(e -> {
+                            log.warn("Statistics update skipped: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .replay(1)
+                .refCount();
+    }
+
+    /**
+     * @return updates, dropping all but the latest while the subscriber is not ready for more
+     */
+    public Flux<ServerSentEvent<Statistics>> subscribe() {
+        return updates.onBackpressureLatest();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.loans.snapshot;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Snapshots of the loan book, off unless {@code app.snapshot.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.snapshot.enabled", havingValue = "true")
+public class SnapshotConfiguration {
+
+    @Bean
+    public SnapshotStore snapshotStore(@Value("${app.snapshot.directory:snapshots}") String directory,
+                                       @Value("${app.snapshot.retained:2}") int retained) {
+        return new SnapshotStore(Paths.get(directory), retained);
+    }
+}
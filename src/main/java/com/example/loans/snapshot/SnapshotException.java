@@ -0,0 +1,11 @@
+package com.example.loans.snapshot;
+
+public class SnapshotException extends RuntimeException {
+    public SnapshotException(String message) {
+        super(message);
+    }
+
+    public SnapshotException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.loans.snapshot;
+
+/**
+ * Snapshot file layout.
+ * <pre>
+ * header: magic, version, created millis, journal offset, pending count, completion count
+ * chunk:  [int byte length][int record count][int crc32][records], at most CHUNK_SIZE bytes of records
+ * end:    [0][total record count][0]
+ * record: type, (completed millis, completion sequence,) uuid msb, uuid lsb, customer code, cents, timestamp millis,
+ *         decision mask, approver count, approvers as short length prefixed UTF-8
+ * </pre>
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x4C4E5331;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+    static final int CHUNK_HEADER_SIZE = 12;
+    static final int CHUNK_SIZE = 256 * 1024;
+
+    static final byte PENDING = 1;
+    static final byte COMPLETION = 2;
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.loans.snapshot;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Start of a snapshot file. Counts are taken when the snapshot starts and only used to pre-size maps on restore.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SnapshotHeader {
+    private final long createdMillis;
+    private final long journalOffset;
+    private final int pendingCount;
+    private final int completionCount;
+}
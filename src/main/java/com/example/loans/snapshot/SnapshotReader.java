@@ -0,0 +1,114 @@
+package com.example.loans.snapshot;
+
+import com.example.loans.model.EventKey;
+import com.example.loans.model.LoanRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static com.example.loans.snapshot.SnapshotFormat.*;
+
+/**
+ * Reads a snapshot chunk by chunk and hands every record to a {@link Handler}, verifying chunk checksums on the way.
+ */
+public class SnapshotReader {
+
+    public interface Handler {
+        void pending(LoanRecord loanRecord);
+
+        void completion(EventKey completion, LoanRecord loanRecord);
+    }
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    static SnapshotHeader readHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer buffer = readFully(channel, ByteBuffer.allocate(HEADER_SIZE), file);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a loan snapshot or unsupported version: " + file);
+        }
+        return new SnapshotHeader(buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getInt());
+    }
+
+    public SnapshotHeader read(Path file, Handler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            SnapshotHeader header = readHeader(channel, file);
+            ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            CRC32 crc = new CRC32();
+            long records = 0;
+
+            for (;;) {
+                chunkHeader.clear();
+                readFully(channel, chunkHeader, file);
+                int length = chunkHeader.getInt();
+                int count = chunkHeader.getInt();
+                int checksum = chunkHeader.getInt();
+                if (length == 0) {
+                    if (count != records) {
+                        throw new IOException("Snapshot " + file + " ends after " + records + " of " + count + " records");
+                    }
+                    return header;
+                }
+                if (length > CHUNK_SIZE) {
+                    throw new IOException("Snapshot " + file + " has a chunk of " + length + " bytes");
+                }
+                chunk.clear().limit(length);
+                readFully(channel, chunk, file);
+                crc.reset();
+                crc.update(chunk.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    throw new IOException("Snapshot " + file + " has a corrupt chunk after " + records + " records");
+                }
+                for (int i = 0; i < count; i++) {
+                    readRecord(chunk, handler);
+                }
+                records += count;
+            }
+        }
+    }
+
+    private void readRecord(ByteBuffer chunk, Handler handler) {
+        byte type = chunk.get();
+        EventKey completion = type == COMPLETION ? new EventKey(chunk.getLong(), chunk.getLong()) : null;
+        UUID uuid = new UUID(chunk.getLong(), chunk.getLong());
+        long customerCode = chunk.getLong();
+        long cents = chunk.getLong();
+        ZonedDateTime timestamp = toDateTime(chunk.getLong());
+        int decisionMask = chunk.getInt();
+        String[] approvers = new String[chunk.get()];
+        for (int i = 0; i < approvers.length; i++) {
+            byte[] name = new byte[chunk.getShort() & 0xFFFF];
+            chunk.get(name);
+            approvers[i] = new String(name, StandardCharsets.UTF_8);
+        }
+        LoanRecord loanRecord = LoanRecord.restore(uuid, customerCode, cents, timestamp, approvers, decisionMask);
+        if (type == COMPLETION) {
+            handler.completion(completion, loanRecord);
+        } else {
+            handler.pending(loanRecord);
+        }
+    }
+
+    private ZonedDateTime toDateTime(long epochMillis) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, ByteBuffer buffer, Path file) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.loans.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Directory of snapshot files named by creation time. Keeps the newest {@code retained} snapshots.
+ */
+@Slf4j
+public class SnapshotStore {
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int retained;
+
+    public SnapshotStore(Path directory, int retained) {
+        this.directory = directory;
+        this.retained = Math.max(1, retained);
+    }
+
+    public SnapshotWriter writer(SnapshotHeader header) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("%s%020d%s.tmp", PREFIX, header.getCreatedMillis(), SUFFIX));
+        return new SnapshotWriter(this, file, header);
+    }
+
+    public Optional<Path> latest() {
+        List<Path> snapshots = snapshots();
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * Header of the newest snapshot, cheap enough to size maps before the restore.
+     */
+    public Optional<SnapshotHeader> latestHeader() {
+        Optional<Path> latest = latest();
+        if (!latest.isPresent()) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(latest.get(), StandardOpenOption.READ)) {
+            return Optional.of(SnapshotReader.readHeader(channel, latest.get()));
+        } catch (IOException e) {
+            log.warn("Cannot read snapshot header of {}", latest.get(), e);
+            return Optional.empty();
+        }
+    }
+
+    Path publish(Path temporary) throws IOException {
+        String name = temporary.getFileName().toString();
+        Path file = temporary.resolveSibling(name.substring(0, name.length() - ".tmp".length()));
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> snapshots = snapshots();
+        for (int i = 0; i < snapshots.size() - retained; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        return file;
+    }
+
+    private List<Path> snapshots() {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new SnapshotException("Cannot list snapshots in " + directory, e);
+        }
+    }
+}
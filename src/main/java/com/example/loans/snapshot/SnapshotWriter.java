@@ -0,0 +1,143 @@
+package com.example.loans.snapshot;
+
+import com.example.loans.model.Approver;
+import com.example.loans.model.EventKey;
+import com.example.loans.model.LoanRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import static com.example.loans.snapshot.SnapshotFormat.*;
+
+/**
+ * Streams records into a temporary file, one chunk at a time, so memory use does not depend on the snapshot size.
+ * {@link #commit()} makes the snapshot visible atomically, closing without commit discards it.
+ */
+public class SnapshotWriter implements Closeable {
+
+    private final SnapshotStore store;
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+    private final ByteBuffer chunkHeader = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private int chunkRecords;
+    private long records;
+    private boolean committed;
+
+    SnapshotWriter(SnapshotStore store, Path file, SnapshotHeader header) throws IOException {
+        this.store = store;
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(header.getCreatedMillis())
+                .putLong(header.getJournalOffset())
+                .putInt(header.getPendingCount())
+                .putInt(header.getCompletionCount());
+        buffer.flip();
+        write(buffer);
+    }
+
+    public void pending(LoanRecord loanRecord) {
+        put(PENDING, null, loanRecord);
+    }
+
+    /**
+     * @param completion key of the loan in the completion index, restored as is
+     */
+    public void completion(EventKey completion, LoanRecord loanRecord) {
+        put(COMPLETION, completion, loanRecord);
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Writes the end marker, forces the file to disk and moves it into place.
+     */
+    public Path commit() throws IOException {
+        flushChunk();
+        chunkHeader.clear();
+        chunkHeader.putInt(0).putInt((int) records).putInt(0).flip();
+        write(chunkHeader);
+        channel.force(true);
+        channel.close();
+        committed = true;
+        return store.publish(file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void put(byte type, EventKey completion, LoanRecord loanRecord) {
+        String[] approvers = loanRecord.getApprovers();
+        byte[][] names = new byte[approvers.length][];
+        int size = 1 + (type == COMPLETION ? 8 * 2 : 0) + 8 * 5 + 4 + 1;
+        for (int i = 0; i < approvers.length; i++) {
+            names[i] = Approver.encodeName(approvers[i]);
+            size += 2 + names[i].length;
+        }
+        if (size > CHUNK_SIZE) {
+            throw new SnapshotException("Snapshot record of " + size + " bytes for customer " + loanRecord.getCustomerId()
+                    + " does not fit a chunk of " + CHUNK_SIZE + " bytes");
+        }
+        if (chunk.remaining() < size) {
+            flushChunk();
+        }
+        chunk.put(type);
+        if (type == COMPLETION) {
+            chunk.putLong(completion.getEpochMillis()).putLong(completion.getSequence());
+        }
+        chunk.putLong(loanRecord.getUuid().getMostSignificantBits())
+                .putLong(loanRecord.getUuid().getLeastSignificantBits())
+                .putLong(loanRecord.getCustomerCode())
+                .putLong(loanRecord.getLoanAmountCents())
+                .putLong(loanRecord.getTimestamp().toInstant().toEpochMilli())
+                .putInt(loanRecord.getDecisionMask())
+                .put((byte) names.length);
+        for (byte[] name : names) {
+            chunk.putShort((short) name.length).put(name);
+        }
+        chunkRecords++;
+        records++;
+    }
+
+    private void flushChunk() {
+        if (chunkRecords == 0) {
+            return;
+        }
+        chunk.flip();
+        crc.reset();
+        crc.update(chunk.duplicate());
+        chunkHeader.clear();
+        chunkHeader.putInt(chunk.remaining()).putInt(chunkRecords).putInt((int) crc.getValue()).flip();
+        try {
+            write(chunkHeader);
+            write(chunk);
+        } catch (IOException e) {
+            throw new SnapshotException("Cannot write snapshot " + file, e);
+        }
+        chunk.clear();
+        chunkRecords = 0;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
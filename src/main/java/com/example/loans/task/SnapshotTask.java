@@ -0,0 +1,68 @@
+package com.example.loans.task;
+
+import com.example.loans.dao.LoanRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Takes a snapshot of the loan book periodically and once more on shutdown,
+ * after the web server stopped taking requests.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.snapshot.enabled", havingValue = "true")
+public class SnapshotTask implements Runnable {
+
+    private final LoanRepository loanRepository;
+    private final ThreadPoolTaskScheduler threadPoolTaskScheduler;
+    private final Duration interval;
+
+    @Getter
+    private volatile long snapshots;
+    @Getter
+    private volatile long lastRecords;
+    @Getter
+    private volatile long lastDurationMillis;
+
+    public SnapshotTask(LoanRepository loanRepository,
+                        ThreadPoolTaskScheduler threadPoolTaskScheduler,
+                        @Value("${app.snapshot.interval:5m}") Duration interval) {
+        this.loanRepository = loanRepository;
+        this.threadPoolTaskScheduler = threadPoolTaskScheduler;
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    public void schedule() {
+        log.info("Scheduling snapshots every {}sec", interval.getSeconds());
+        threadPoolTaskScheduler.scheduleWithFixedDelay(this, Instant.now().plus(interval), interval);
+    }
+
+    @PreDestroy
+    public void onShutdown() {
+        run();
+    }
+
+    @Override
+    public synchronized void run() {
+        long start = System.nanoTime();
+        try {
+            lastRecords = loanRepository.snapshot();
+            lastDurationMillis = (System.nanoTime() - start) / 1_000_000;
+            snapshots++;
+            log.info("Snapshot of {} loans written in {}ms", lastRecords, lastDurationMillis);
+        } catch (IOException | RuntimeException e) {
+            log.error("Snapshot failed", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.loans.task;
+
+import com.example.loans.dao.LoanRepository;
+import com.example.loans.metrics.LoanMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * Periodically drops finished requests older than the retention period, so memory stays bounded on long running nodes.
+ * Every pass records its pause and the number of removed requests, see {@link LoanMetrics#compaction(long, int)}.
+ */
+@Slf4j
+@Component
+public class StorageCompactionTask implements Runnable {
+
+    private final LoanRepository loanRepository;
+    private final ThreadPoolTaskScheduler threadPoolTaskScheduler;
+    private final Duration finishedRetention;
+    private final Duration interval;
+    private final LoanMetrics metrics;
+
+    public StorageCompactionTask(LoanRepository loanRepository,
+                                 ThreadPoolTaskScheduler threadPoolTaskScheduler,
+                                 LoanMetrics metrics,
+                                 @Value("${app.compaction.retention:10m}") Duration finishedRetention,
+                                 @Value("${app.compaction.interval:10s}") Duration interval) {
+        this.loanRepository = loanRepository;
+        this.threadPoolTaskScheduler = threadPoolTaskScheduler;
+        this.finishedRetention = finishedRetention;
+        this.interval = interval;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void schedule() {
+        log.info("Scheduling storage compaction every {}sec, finished requests retention {}sec",
+                interval.getSeconds(), finishedRetention.getSeconds());
+        threadPoolTaskScheduler.scheduleWithFixedDelay(this, interval);
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        ZonedDateTime now = ZonedDateTime.now();
+
+        int requests = loanRepository.removeFinishedBefore(now.minus(finishedRetention));
+
+        long pause = System.nanoTime() - start;
+        metrics.compaction(pause, requests);
+
+        if (requests > 0) {
+            log.info("Compaction removed {} finished requests in {}µs", requests, pause / 1000);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.loans;
+
+import com.example.loans.dto.DecisionDto;
+import com.example.loans.dto.LoanApprovalRequestDto;
+import com.example.loans.dto.ResponseDto;
+import com.example.loans.exception.ApiError;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.reactive.server.ReactiveWebServerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.feed.enabled=true")
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class LoansApplicationReactiveTestIT {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveWebServerFactory webServerFactory;
+
+    @Test
+    void contextLoadsOnReactorNetty() {
+        assertThat(webServerFactory).isInstanceOf(NettyReactiveWebServerFactory.class);
+    }
+
+    @Test
+    public void whenAddingLoanApprovalRequestAndApprovedDecision_expectContractInStatistics() {
+        webTestClient.post()
+                .uri("/api/loans/approval-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanApprovalRequestDto.builder()
+                        .customerId("RE-ACTV-001")
+                        .loanAmount(BigDecimal.valueOf(123.45))
+                        .approvers(Collections.singletonList("Senior Approver"))
+                        .build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(ResponseDto.class)
+                .consumeWith(result -> assertEquals("Approval request successfully created for client: RE-ACTV-001",
+                        result.getResponseBody().getMessage()));
+
+        webTestClient.post()
+                .uri("/api/loans/decision")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(DecisionDto.builder()
+                        .customerId("RE-ACTV-001")
+                        .approverUsername("Senior Approver")
+                        .state(APPROVED.name())
+                        .build())
+                .exchange()
+                .expectStatus().isCreated();
+
+        webTestClient.get()
+                .uri("/api/loans/statistics")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(1)
+                .jsonPath("$.sum").isEqualTo(123.45);
+    }
+
+    @Test
+    public void givenInvalidCustomerId_whenAddingLoanApprovalRequest_expectSameErrorBodyAsServletMode() {
+        webTestClient.post()
+                .uri("/api/loans/approval-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanApprovalRequestDto.builder()
+                        .customerId("RE-ACTV-01")
+                        .loanAmount(BigDecimal.valueOf(123.45))
+                        .approvers(Collections.singletonList("Senior Approver"))
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ApiError.class)
+                .consumeWith(result -> {
+                    assertEquals("MethodArgumentNotValidException occurred", result.getResponseBody().getMessage());
+                    assertThat(result.getResponseBody().getErrors()).startsWith("customerId, must match");
+                });
+    }
+
+    @Test
+    public void givenNonExistentClientId_whenMakingDecision_expectBusinessRuleExceptionMappedToBadRequest() {
+        webTestClient.post()
+                .uri("/api/loans/decision")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(DecisionDto.builder()
+                        .customerId("RE-ACTV-X3X")
+                        .approverUsername("Uncle Bob")
+                        .state(APPROVED.name())
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ApiError.class)
+                .consumeWith(result -> assertEquals(
+                        "Decision cannot be saved. There is no related ApprovalRequest with customerId: RE-ACTV-X3X",
+                        result.getResponseBody().getErrors()));
+    }
+
+    @Test
+    public void givenNonNumericLimit_whenGettingPendingLoans_expectBadRequest() {
+        webTestClient.get()
+                .uri("/api/loans/approvers/Senior Approver/pending?limit=abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ApiError.class)
+                .consumeWith(result -> assertEquals("Invalid limit: abc", result.getResponseBody().getErrors()));
+    }
+
+    @Test
+    public void whenStreamingStatistics_expectServerSentEvents() {
+        ServerSentEvent<Map<String, Object>> update = webTestClient.get()
+                .uri("/api/loans/statistics/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<Map<String, Object>>>() {
+                })
+                .getResponseBody()
+                .blockFirst(Duration.ofSeconds(10));
+
+        assertThat(update).isNotNull();
+        assertEquals("statistics", update.event());
+        assertThat(update.data()).containsKeys("count", "sum", "avg", "max", "min");
+    }
+
+    @Test
+    public void whenResumingChangesFromLastEventId_expectOnlyLaterEvents() {
+        webTestClient.post()
+                .uri("/api/loans/approval-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanApprovalRequestDto.builder()
+                        .customerId("FE-EDSS-001")
+                        .loanAmount(BigDecimal.valueOf(42))
+                        .approvers(Collections.singletonList("Senior Approver"))
+                        .build())
+                .exchange()
+                .expectStatus().isCreated();
+
+        ServerSentEvent<List<Map<String, Object>>> batch = webTestClient.get()
+                .uri("/api/loans/changes?batch=1")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", "0")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<List<Map<String, Object>>>>() {
+                })
+                .getResponseBody()
+                .filter(event -> "FE-EDSS-001".equals(event.data().get(0).get("customerId")))
+                .blockFirst(Duration.ofSeconds(10));
+
+        assertThat(batch).isNotNull();
+        assertEquals("changes", batch.event());
+        long offset = ((Number) batch.data().get(0).get("offset")).longValue();
+        assertEquals(String.valueOf(offset + 1), batch.id());
+        assertEquals("CREATED", batch.data().get(0).get("type"));
+    }
+}
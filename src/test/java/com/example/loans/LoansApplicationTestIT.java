@@ -1,5 +1,7 @@
 package com.example.loans;
 
+import com.example.loans.controller.LoanController;
+import com.example.loans.dto.BatchResultDto;
 import com.example.loans.dto.DecisionDto;
 import com.example.loans.dto.LoanApprovalRequestDto;
 import com.example.loans.dto.ResponseDto;
@@ -13,17 +15,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 
+import static com.example.loans.dto.BatchItemStatus.*;
 import static com.example.loans.model.DecisionState.APPROVED;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {"app.feed.enabled=true", "spring.mvc.async.request-timeout=500ms"})
 @AutoConfigureWebTestClient
 class LoansApplicationTestIT {
 
@@ -88,4 +96,176 @@ class LoansApplicationTestIT {
                     assertEquals("Approval request successfully created for client: XX-XXXX-X7X", result.getResponseBody().getMessage());
                 });
     }
+
+    @Test
+    public void whenAddingApprovalRequestBatchWithDuplicateAndInvalidItems_expectPerItemResults() {
+        LoanApprovalRequestDto first = LoanApprovalRequestDto.builder()
+                .customerId("BA-TCH0-001")
+                .loanAmount(BigDecimal.valueOf(100.5))
+                .approvers(Collections.singletonList("Senior Approver"))
+                .build();
+        LoanApprovalRequestDto invalid = LoanApprovalRequestDto.builder()
+                .customerId("BA-TCH0-02")
+                .loanAmount(BigDecimal.valueOf(200))
+                .approvers(Collections.singletonList("Senior Approver"))
+                .build();
+        LoanApprovalRequestDto second = LoanApprovalRequestDto.builder()
+                .customerId("BA-TCH0-003")
+                .loanAmount(BigDecimal.valueOf(300))
+                .approvers(Arrays.asList("Senior Approver", "Junior Approver"))
+                .build();
+
+        webTestClient.post()
+                .uri("/api/loans/approval-request/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Arrays.asList(first, invalid, second, first))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BatchResultDto.class)
+                .consumeWith(result -> {
+                    BatchResultDto body = result.getResponseBody();
+                    assertThat(body).isNotNull();
+                    assertEquals(2, body.getSucceeded());
+                    assertEquals(2, body.getFailed());
+                    assertEquals(CREATED, body.getResults().get(0).getStatus());
+                    assertEquals(INVALID, body.getResults().get(1).getStatus());
+                    assertThat(body.getResults().get(1).getMessage()).startsWith("customerId, must match");
+                    assertEquals(CREATED, body.getResults().get(2).getStatus());
+                    assertEquals(DUPLICATE_PENDING, body.getResults().get(3).getStatus());
+                });
+    }
+
+    @Test
+    public void whenAddingNdjsonApprovalRequestBatchWithMalformedLine_expectOtherLinesCreated() {
+        String ndjson = "{\"customerId\":\"ND-JSON-001\",\"loanAmount\":12.34,\"approvers\":[\"Senior Approver\"]}\n"
+                + "{\"customerId\":\"ND-JSON-002\",\"loanAmount\":\n"
+                + "\n"
+                + "{\"customerId\":\"ND-JSON-003\",\"loanAmount\":56.78,\"approvers\":[\"Senior Approver\"]}\n";
+
+        webTestClient.post()
+                .uri("/api/loans/approval-request/batch")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BatchResultDto.class)
+                .consumeWith(result -> {
+                    BatchResultDto body = result.getResponseBody();
+                    assertThat(body).isNotNull();
+                    assertEquals(2, body.getSucceeded());
+                    assertEquals(1, body.getFailed());
+                    assertEquals(INVALID, body.getResults().get(1).getStatus());
+                    assertThat(body.getResults().get(1).getMessage()).startsWith("Malformed JSON");
+                });
+    }
+
+    @Test
+    public void whenAddingApprovalRequest_expectRepositoryMetricsOnPrometheusEndpoint() {
+        LoanApprovalRequestDto approvalRequestDto = LoanApprovalRequestDto.builder()
+                .customerId("ME-TRIC-001")
+                .loanAmount(BigDecimal.valueOf(10))
+                .approvers(Collections.singletonList("Senior Approver"))
+                .build();
+        webTestClient.post()
+                .uri("/api/loans/approval-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(approvalRequestDto)
+                .exchange()
+                .expectStatus().isCreated();
+
+        webTestClient.get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .consumeWith(result -> assertThat(result.getResponseBody())
+                        .contains("loans_repository_seconds_count{operation=\"saveAsPending\",}")
+                        .contains("loans_pending ")
+                        .contains("notifications_queue ")
+                        .contains("loans_compaction_seconds_count ")
+                        .contains("loans_compaction_removed_total ")
+                        .contains("executor_queued_tasks{name=\"taskScheduler\",}"));
+    }
+
+    @Test
+    public void whenGettingStatisticsForWindow_expectWindowsUpToMaximumAccepted() {
+        webTestClient.get()
+                .uri("/api/loans/statistics?window=1h")
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get()
+                .uri("/api/loans/statistics?window=2h")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ApiError.class)
+                .consumeWith(result -> assertEquals("Statistics window must be between 1s and 3600s",
+                        result.getResponseBody().getErrors()));
+
+        webTestClient.get()
+                .uri("/api/loans/statistics?window=soon")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void whenStreamingStatisticsLongerThanAsyncRequestTimeout_expectServerSentEvents() {
+        ServerSentEvent<Map<String, Object>> update = webTestClient.get()
+                .uri("/api/loans/statistics/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<Map<String, Object>>>() {
+                })
+                .getResponseBody()
+                .skip(2)
+                .blockFirst(Duration.ofSeconds(10));
+
+        assertThat(update).isNotNull();
+        assertEquals("statistics", update.event());
+        assertThat(update.data()).containsKeys("count", "sum", "avg", "max", "min");
+    }
+
+    @Test
+    public void whenStreamingChangesAsNdjson_expectCreatedLoanAsJsonLine() {
+        webTestClient.post()
+                .uri("/api/loans/approval-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanApprovalRequestDto.builder()
+                        .customerId("FE-EDND-001")
+                        .loanAmount(new BigDecimal("42.50"))
+                        .approvers(Collections.singletonList("Senior Approver"))
+                        .build())
+                .exchange()
+                .expectStatus().isCreated();
+
+        String line = webTestClient.get()
+                .uri("/api/loans/changes?from=0&batch=10")
+                .accept(MediaType.valueOf(LoanController.APPLICATION_NDJSON_VALUE))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseBody()
+                .filter(json -> json.contains("FE-EDND-001"))
+                .blockFirst(Duration.ofSeconds(10));
+
+        assertThat(line).contains("\"type\":\"CREATED\"", "\"amount\":42.50");
+    }
+
+    @Test
+    public void givenPageSizeOutOfRange_whenListingPendingLoansOfApprover_expectBadRequest() {
+        webTestClient.get()
+                .uri("/api/loans/approvers/Nobody/pending")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.loans.length()").isEqualTo(0);
+
+        webTestClient.get()
+                .uri("/api/loans/approvers/Nobody/pending?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ApiError.class)
+                .consumeWith(result -> assertEquals("Page size must be between 1 and 1000", result.getResponseBody().getErrors()));
+    }
 }
@@ -0,0 +1,192 @@
+package com.example.loans;
+
+import com.example.loans.cluster.ClusterClient;
+import com.example.loans.dao.LongConcurrentHashMap;
+import com.example.loans.dto.BatchResultDto;
+import com.example.loans.dto.DecisionDto;
+import com.example.loans.dto.HistoryPageDto;
+import com.example.loans.dto.LoanApprovalRequestDto;
+import com.example.loans.exception.ApiError;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.loans.dto.BatchItemStatus.COMPLETED;
+import static com.example.loans.model.DecisionState.APPROVED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two nodes on localhost with a static member list, node 0 in servlet mode and node 1 in reactive mode.
+ */
+class LoansClusterTestIT {
+
+    private static final int CUSTOMERS = 20;
+
+    static final ConfigurableApplicationContext[] nodes = new ConfigurableApplicationContext[2];
+    static final WebTestClient[] clients = new WebTestClient[2];
+
+    @BeforeAll
+    public static void startNodes() throws IOException {
+        int[] ports = {freePort(), freePort()};
+        String members = "--app.cluster.members=http://localhost:" + ports[0] + ",http://localhost:" + ports[1];
+        for (int node = 0; node < nodes.length; node++) {
+            nodes[node] = new SpringApplicationBuilder(LoansApplication.class)
+                    .profiles(node == 0 ? "default" : "reactive")
+                    .run("--server.port=" + ports[node], "--app.node-id=" + node, "--app.cluster.enabled=true", members);
+            clients[node] = WebTestClient.bindToServer().baseUrl("http://localhost:" + ports[node]).build();
+        }
+    }
+
+    @AfterAll
+    public static void stopNodes() {
+        for (ConfigurableApplicationContext node : nodes) {
+            if (node != null) {
+                node.close();
+            }
+        }
+    }
+
+    @Test
+    public void givenTwoNodes_whenSendingEveryRequestToOneNode_expectLoansKeptByOwnersAndStatisticsMerged() {
+        int[] owned = new int[nodes.length];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            String customerId = customerId(i);
+            owned[nodes[0].getBean(ClusterClient.class).ownerOf(customerId)]++;
+            clients[0].post()
+                    .uri("/api/loans/approval-request")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(LoanApprovalRequestDto.builder()
+                            .customerId(customerId)
+                            .loanAmount(BigDecimal.valueOf(100 + i))
+                            .approvers(Collections.singletonList("Senior Approver"))
+                            .build())
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+        assertThat(owned[0]).isPositive();
+        assertThat(owned[1]).isPositive();
+        for (int node = 0; node < nodes.length; node++) {
+            assertEquals(owned[node], nodes[node].getBean(LongConcurrentHashMap.class).size());
+        }
+
+        clients[1].post()
+                .uri("/api/loans/approval-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanApprovalRequestDto.builder()
+                        .customerId(customerId(0))
+                        .loanAmount(BigDecimal.valueOf(100))
+                        .approvers(Collections.singletonList("Senior Approver"))
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(ApiError.class)
+                .consumeWith(result -> assertThat(result.getResponseBody().getErrors())
+                        .startsWith("Attempt to save duplicate pending LoanApprovalRequest"));
+
+        clients[1].get()
+                .uri("/api/loans/approvers/Senior Approver/pending?limit=15")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.loans.length()").isEqualTo(15)
+                .jsonPath("$.loans[0].customerId").isEqualTo(customerId(0))
+                .jsonPath("$.next").isEqualTo(customerId(14));
+        clients[0].get()
+                .uri("/api/loans/approvers/Senior Approver/pending?limit=15&after=" + customerId(14))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.loans.length()").isEqualTo(CUSTOMERS - 15)
+                .jsonPath("$.loans[0].customerId").isEqualTo(customerId(15))
+                .jsonPath("$.next").doesNotExist();
+
+        List<DecisionDto> decisions = new ArrayList<>();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            decisions.add(DecisionDto.builder()
+                    .customerId(customerId(i))
+                    .approverUsername("Senior Approver")
+                    .state(APPROVED.name())
+                    .build());
+        }
+        clients[1].post()
+                .uri("/api/loans/decision/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(decisions)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BatchResultDto.class)
+                .consumeWith(result -> {
+                    assertEquals(CUSTOMERS, result.getResponseBody().getSucceeded());
+                    result.getResponseBody().getResults().forEach(item -> assertEquals(COMPLETED, item.getStatus()));
+                });
+
+        for (WebTestClient client : clients) {
+            client.get()
+                    .uri("/api/loans/statistics")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.count").isEqualTo(CUSTOMERS)
+                    .jsonPath("$.sum").isEqualTo(CUSTOMERS * 100 + CUSTOMERS * (CUSTOMERS - 1) / 2)
+                    .jsonPath("$.min").isEqualTo(100)
+                    .jsonPath("$.max").isEqualTo(100 + CUSTOMERS - 1);
+        }
+        clients[1].get()
+                .uri("/api/loans/statistics?window=5m&histogram=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(CUSTOMERS)
+                .jsonPath("$.p50").isEqualTo(100 + CUSTOMERS / 2 - 1)
+                .jsonPath("$.p90").isEqualTo(100 + CUSTOMERS * 9 / 10 - 1)
+                .jsonPath("$.p99").isEqualTo(100 + CUSTOMERS - 1)
+                .jsonPath("$.distribution.length()").isEqualTo(CUSTOMERS)
+                .jsonPath("$.distribution[0].amount").isEqualTo(100)
+                .jsonPath("$.distribution[0].count").isEqualTo(1);
+        List<String> history = new ArrayList<>();
+        String cursor = null;
+        for (int page = 0; page < 3; page++) {
+            HistoryPageDto historyPage = clients[page % 2].get()
+                    .uri("/api/loans/history?from=2020-01-01T00:00:00Z&state=APPROVED&limit=8" + (cursor == null ? "" : "&cursor=" + cursor))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(HistoryPageDto.class)
+                    .returnResult()
+                    .getResponseBody();
+            historyPage.getLoans().forEach(loan -> history.add(loan.getCustomerId()));
+            cursor = historyPage.getNext();
+        }
+        assertThat(cursor).isNull();
+        assertThat(history).hasSize(CUSTOMERS).doesNotHaveDuplicates();
+
+        clients[0].get()
+                .uri("/api/loans/statistics")
+                .header(ClusterClient.FORWARDED_HEADER, "1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(owned[0]);
+    }
+
+    private static String customerId(int i) {
+        return String.format("CL-0000-%03d", i);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
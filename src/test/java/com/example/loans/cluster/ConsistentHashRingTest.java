@@ -0,0 +1,51 @@
+package com.example.loans.cluster;
+
+import com.example.loans.model.CustomerId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final int CUSTOMERS = 30_000;
+
+    @Test
+    public void givenThreeMembers_whenAssigningCustomers_expectEveryMemberOwnsRoughlyAThird() {
+        ConsistentHashRing ring = new ConsistentHashRing(
+                Arrays.asList("http://localhost:8081", "http://localhost:8082", "http://localhost:8083"), 128);
+
+        int[] owned = new int[3];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            owned[ring.ownerOf(customerCode(i))]++;
+        }
+
+        for (int count : owned) {
+            assertTrue(count > CUSTOMERS / 3 * 0.8 && count < CUSTOMERS / 3 * 1.2, Arrays.toString(owned));
+        }
+    }
+
+    @Test
+    public void givenFourthMember_whenAssigningCustomers_expectOnlyCustomersOfTheNewMemberMoved() {
+        ConsistentHashRing three = new ConsistentHashRing(
+                Arrays.asList("http://localhost:8081", "http://localhost:8082", "http://localhost:8083"), 128);
+        ConsistentHashRing four = new ConsistentHashRing(
+                Arrays.asList("http://localhost:8081", "http://localhost:8082", "http://localhost:8083", "http://localhost:8084"), 128);
+
+        int moved = 0;
+        for (int i = 0; i < CUSTOMERS; i++) {
+            int before = three.ownerOf(customerCode(i));
+            int after = four.ownerOf(customerCode(i));
+            if (before != after) {
+                assertEquals(3, after);
+                moved++;
+            }
+        }
+        assertTrue(moved > CUSTOMERS / 4 * 0.8 && moved < CUSTOMERS / 4 * 1.2, "moved " + moved);
+    }
+
+    private static long customerCode(int i) {
+        return CustomerId.encode(String.format("CL-%04d-%03d", i / 1000, i % 1000));
+    }
+}
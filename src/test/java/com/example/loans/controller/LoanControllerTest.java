@@ -3,6 +3,7 @@ package com.example.loans.controller;
 import com.example.loans.dto.DecisionDto;
 import com.example.loans.dto.LoanApprovalRequestDto;
 import com.example.loans.exception.ErrorHandlingControllerAdvice;
+import com.example.loans.model.Approver;
 import com.example.loans.service.LoanService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
@@ -74,6 +75,20 @@ public class LoanControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    public void whenLoanApprovalRequestWithTooLongApproverName_thenReturnsStatus400() throws Exception {
+        LoanApprovalRequestDto input = LoanApprovalRequestDto.builder()
+                .customerId("XX-XXXX-X5X")
+                .loanAmount(BigDecimal.valueOf(123.45))
+                .approvers(Collections.singletonList(String.join("", Collections.nCopies(Approver.MAX_NAME_LENGTH + 1, "x"))))
+                .build();
+
+        mvc.perform(post("/api/loans/approval-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ow.writeValueAsString(input)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void whenLoanApprovalRequestIsValid_thenReturnsStatus201() throws Exception {
         LoanApprovalRequestDto input = LoanApprovalRequestDto.builder()
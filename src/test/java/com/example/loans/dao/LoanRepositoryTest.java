@@ -1,44 +1,68 @@
 package com.example.loans.dao;
 
 import com.example.loans.exception.BusinessRuleException;
+import com.example.loans.finance.Amount;
+import com.example.loans.finance.SlidingWindowStatistics;
+import com.example.loans.journal.FsyncPolicy;
+import com.example.loans.journal.Journal;
+import com.example.loans.metrics.LoanMetrics;
 import com.example.loans.model.*;
-import org.junit.jupiter.api.BeforeAll;
+import com.example.loans.notification.NotificationPipeline;
+import com.example.loans.notification.OverflowPolicy;
+import com.example.loans.notification.StubNotificationSink;
+import com.example.loans.snapshot.SnapshotStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
+import static com.example.loans.model.DecisionState.APPROVED;
 import static com.example.loans.model.DecisionState.PENDING;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class LoanRepositoryTest {
 
-    ConcurrentSkipListMap<EventKey, UUID> events;
-    ConcurrentHashMap<ApprovalRequest, ConcurrentHashMap<String, Decision>> storage;
+    LongConcurrentHashMap<LoanRecord> pendingLoans;
+    ConcurrentHashMap<UUID, LoanRecord> loanHistory;
+    ConcurrentSkipListMap<EventKey, LoanRecord> completions;
 
-    private static ThreadPoolTaskScheduler threadPoolTaskScheduler;
+    StubNotificationSink notificationSink;
+    NotificationPipeline notificationPipeline;
     private LoanRepository repository;
 
-    @BeforeAll
-    public static void setup() {
-        threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
-        threadPoolTaskScheduler.setPoolSize(5);
-        threadPoolTaskScheduler.setThreadNamePrefix("ThreadPoolTaskScheduler");
+    @BeforeEach
+    public void each() throws IOException {
+        pendingLoans = new LongConcurrentHashMap<>();
+        loanHistory = new ConcurrentHashMap<>();
+        completions = new ConcurrentSkipListMap<>();
+        notificationSink = new StubNotificationSink();
+        notificationPipeline = new NotificationPipeline(notificationSink, new ObjectMapper(), 10_000, OverflowPolicy.BLOCK,
+                100, 3, Duration.ofMillis(10), "notifications.spill");
+        notificationPipeline.start();
+        repository = new LoanRepository(pendingLoans, loanHistory, completions, new SlidingWindowStatistics(Duration.ofSeconds(60)), notificationPipeline);
     }
 
-    @BeforeEach
-    public void each() {
-        events = new ConcurrentSkipListMap<>();
-        storage = new ConcurrentHashMap<>();
-        repository = new LoanRepository(events, storage, threadPoolTaskScheduler);
+    @AfterEach
+    public void stopNotifications() throws InterruptedException {
+        notificationPipeline.stop();
     }
 
     @Test
@@ -49,8 +73,12 @@ public class LoanRepositoryTest {
         BusinessRuleException thrown = assertThrows(BusinessRuleException.class,
                 () -> repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "AAA", 111.01)));
         assertTrue(thrown.getMessage().contains("Attempt to save duplicate pending LoanApprovalRequest"));
+        assertEquals(1, pendingLoans.size());
+        assertEquals(0, repository.getStatistics(Duration.ofSeconds(60)).getCount());
+
+        repository.save(generateDecision("OK-XXXX-AAA", "Under €1_000 Approver", APPROVED));
+
         Statistics statistics = repository.getStatistics(Duration.ofSeconds(60));
-        assertEquals(1, storage.size());
         assertEquals(1, statistics.getCount());
         assertEquals(0, BigDecimal.valueOf(111.01).compareTo(statistics.getSum()));
         assertEquals(0, BigDecimal.valueOf(111.01).compareTo(statistics.getAvg()));
@@ -76,7 +104,7 @@ public class LoanRepositoryTest {
                         repository.saveAsPending(LoanApprovalRequest.builder()
                                 .customerId("1X-XXXX-XAX")
                                 .decisionState(PENDING)
-                                .loanAmount(BigDecimal.valueOf(123.01 + i))
+                                .loanAmount(Amount.of(BigDecimal.valueOf(123.01 + i)))
                                 .approvers(new HashSet<>(Arrays.asList(new Approver("Under €1_000 Approver"))))
                                 .timestamp(ZonedDateTime.now())
                                 .build());
@@ -100,7 +128,7 @@ public class LoanRepositoryTest {
                     try {
                         repository.saveAsPending(LoanApprovalRequest.builder()
                                 .customerId("2X-XXXX-XWX")
-                                .loanAmount(BigDecimal.valueOf(1023.55 + i * 10))
+                                .loanAmount(Amount.of(BigDecimal.valueOf(1023.55 + i * 10)))
                                 .decisionState(PENDING)
                                 .approvers(new HashSet<>(Arrays.asList(new Approver("Under €9_000 Approver"))))
                                 .timestamp(ZonedDateTime.now())
@@ -128,12 +156,14 @@ public class LoanRepositoryTest {
         executorService.shutdown();
         executorService.awaitTermination(5, TimeUnit.SECONDS);
 
-        Statistics statistics = repository.getStatistics(Duration.ofSeconds(60));
-
         printStorage();
 
-        assertEquals(2, storage.size());
-        assertEquals(6, events.size());
+        assertEquals(2, pendingLoans.size());
+
+        repository.save(generateDecision("1X-XXXX-XAX", "Under €1_000 Approver", APPROVED));
+        repository.save(generateDecision("2X-XXXX-XWX", "Under €9_000 Approver", APPROVED));
+
+        Statistics statistics = repository.getStatistics(Duration.ofSeconds(60));
         assertEquals(2, statistics.getCount());
         assertEquals(0, BigDecimal.valueOf(123.01).add(BigDecimal.valueOf(1023.55)).compareTo(statistics.getSum()));
         assertEquals(0, BigDecimal.valueOf(573.28).compareTo(statistics.getAvg()));
@@ -142,36 +172,20 @@ public class LoanRepositoryTest {
     }
 
     @Test
-    public void given3ApprovalRequestWithin1MinAnd5Outside_whenGettingStatistics_expectValidStatisticsFor3ApprovalRequests() {
-        UUID uuid1 = UUID.randomUUID();
-        UUID uuid2 = UUID.randomUUID();
-        UUID uuid3 = UUID.randomUUID();
-
-        UUID uuid4 = UUID.randomUUID();
-        UUID uuid5 = UUID.randomUUID();
-
-        events.putIfAbsent(new EventKey(ZonedDateTime.now().minus(Duration.ofSeconds(10))), uuid1);
-        events.putIfAbsent(new EventKey(ZonedDateTime.now().minus(Duration.ofSeconds(20))), uuid2);
-        events.putIfAbsent(new EventKey(ZonedDateTime.now().minus(Duration.ofSeconds(30))), uuid3);
-        events.putIfAbsent(new EventKey(ZonedDateTime.now().minus(Duration.ofSeconds(66))), uuid4);
-        events.putIfAbsent(new EventKey(ZonedDateTime.now().minus(Duration.ofSeconds(90))), uuid5);
-
-        ConcurrentHashMap<String, Decision> storagePutResult = storage.put(generatePendingLoanApprovalRequest(uuid1, "001", 111.01), generateDecision("001"));
-        assertEquals(null, storagePutResult);
-        storagePutResult = storage.put(generatePendingLoanApprovalRequest(uuid2, "002", 121.01), generateDecision("002"));
-        assertEquals(null, storagePutResult);
-        storagePutResult = storage.put(generatePendingLoanApprovalRequest(uuid3, "003", 131.01), generateDecision("003"));
-        assertEquals(null, storagePutResult);
-
-        storagePutResult = storage.put(generatePendingLoanApprovalRequest(uuid4, "004", 141.01), generateDecision("004"));
-        assertEquals(null, storagePutResult);
-        storagePutResult = storage.put(generatePendingLoanApprovalRequest(uuid5, "005", 151.01), generateDecision("005"));
-        assertEquals(null, storagePutResult);
+    public void givenPendingAndDeclinedApprovalRequests_whenGettingStatistics_expectOnlySentContractsCounted() {
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "001", 111.01));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "002", 121.01));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "003", 131.01));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "004", 141.01));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "005", 151.01));
+
+        repository.save(generateDecision("OK-XXXX-001", "Under €1_000 Approver", APPROVED));
+        repository.save(generateDecision("OK-XXXX-002", "Under €1_000 Approver", APPROVED));
+        repository.save(generateDecision("OK-XXXX-003", "Under €1_000 Approver", APPROVED));
+        repository.save(generateDecision("OK-XXXX-004", "Under €1_000 Approver", DecisionState.DECLINED));
 
         Statistics statistics = repository.getStatistics(Duration.ofSeconds(60));
 
-        assertEquals(5, storage.size());
-        assertEquals(5, events.size());
         assertEquals(3, statistics.getCount());
         assertEquals(0, BigDecimal.valueOf(363.03).compareTo(statistics.getSum()));
         assertEquals(0, BigDecimal.valueOf(121.01).compareTo(statistics.getAvg()));
@@ -179,15 +193,277 @@ public class LoanRepositoryTest {
         assertEquals(0, BigDecimal.valueOf(131.01).compareTo(statistics.getMax()));
     }
 
-    private ConcurrentHashMap<String, Decision> generateDecision(String customerIdSuffix) {
-        Decision pendingDecision = Decision.builder()
-                .customerId("OK-XXXX-" + customerIdSuffix)
-                .approverUsername("Under €1_000 Approver")
-                .state(PENDING)
+    @Test
+    public void givenFinishedAndPendingApprovalRequests_whenCompacting_expectOnlyFinishedRemoved() {
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "001", 111.01));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "002", 121.01));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "003", 131.01));
+        repository.save(generateDecision("OK-XXXX-001", "Under €1_000 Approver", APPROVED));
+        repository.save(generateDecision("OK-XXXX-002", "Under €1_000 Approver", DecisionState.DECLINED));
+
+        assertEquals(1, pendingLoans.size());
+        assertEquals(2, loanHistory.size());
+        assertEquals(2, completions.size());
+
+        ZonedDateTime future = ZonedDateTime.now().plusSeconds(1);
+        assertEquals(2, repository.removeFinishedBefore(future));
+
+        assertEquals(1, pendingLoans.size());
+        assertEquals(0, loanHistory.size());
+        assertEquals(0, completions.size());
+        assertEquals(1, repository.getStatistics(Duration.ofSeconds(60)).getCount());
+        assertThrows(BusinessRuleException.class,
+                () -> repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "003", 131.01)));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "001", 111.01));
+    }
+
+    @Test
+    public void givenMeterRegistry_whenSavingDuplicateAndRejectedDecisions_expectCountersAndTimers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        repository.setMetrics(new LoanMetrics(registry));
+
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "001", 111.01));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "002", 121.01));
+        assertThrows(BusinessRuleException.class,
+                () -> repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "001", 111.01)));
+        assertThrows(BusinessRuleException.class,
+                () -> repository.save(generateDecision("OK-XXXX-001", "Stranger", APPROVED)));
+        assertThrows(BusinessRuleException.class,
+                () -> repository.save(generateDecision("OK-XXXX-003", "Under €1_000 Approver", APPROVED)));
+        repository.save(generateDecision("OK-XXXX-001", "Under €1_000 Approver", APPROVED));
+        repository.save(generateDecision("OK-XXXX-002", "Under €1_000 Approver", DecisionState.DECLINED));
+        repository.getStatistics(Duration.ofSeconds(60));
+
+        assertEquals(1, registry.get("loans.duplicates").counter().count());
+        assertEquals(1, registry.get("loans.decisions.rejected").tag("reason", "unknown_approver").counter().count());
+        assertEquals(1, registry.get("loans.decisions.rejected").tag("reason", "not_found").counter().count());
+        assertEquals(1, registry.get("loans.completed").tag("state", "approved").counter().count());
+        assertEquals(1, registry.get("loans.completed").tag("state", "declined").counter().count());
+        assertEquals(3, registry.get("loans.repository").tag("operation", "saveAsPending").timer().count());
+        assertEquals(4, registry.get("loans.repository").tag("operation", "save").timer().count());
+        assertEquals(1, registry.get("loans.repository").tag("operation", "getStatistics").timer().count());
+    }
+
+    @Test
+    public void givenDecisionsForSeveralCustomers_whenSavingBatch_expectOutcomePerDecisionAndEachLoanCompletedOnce() throws InterruptedException {
+        LoanApprovalRequest twoApprovers = generatePendingLoanApprovalRequest(UUID.randomUUID(), "001", 111.01);
+        twoApprovers.getApprovers().add(new Approver("Senior Approver"));
+        repository.saveAsPending(twoApprovers);
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "002", 121.01));
+
+        LoanRecord.Outcome[] outcomes = repository.saveAll(Arrays.asList(
+                generateDecision("OK-XXXX-001", "Under €1_000 Approver", APPROVED),
+                generateDecision("OK-XXXX-002", "Under €1_000 Approver", DecisionState.DECLINED),
+                generateDecision("OK-XXXX-001", "Stranger", APPROVED),
+                generateDecision("OK-XXXX-009", "Under €1_000 Approver", APPROVED),
+                generateDecision("OK-XXXX-001", "Senior Approver", APPROVED),
+                generateDecision("OK-XXXX-002", "Under €1_000 Approver", APPROVED)));
+
+        assertArrayEquals(new LoanRecord.Outcome[]{
+                LoanRecord.Outcome.RECORDED,
+                LoanRecord.Outcome.DECLINED,
+                LoanRecord.Outcome.UNKNOWN_APPROVER,
+                LoanRecord.Outcome.FINISHED,
+                LoanRecord.Outcome.APPROVED,
+                LoanRecord.Outcome.FINISHED}, outcomes);
+        assertTrue(pendingLoans.isEmpty());
+        assertEquals(2, loanHistory.size());
+        assertEquals(2, completions.size());
+        assertEquals(1, repository.getStatistics(Duration.ofSeconds(60)).getCount());
+        assertTrue(notificationSink.awaitDelivered(2, 5_000));
+    }
+
+    @Test
+    public void givenJournaledChanges_whenReplayingIntoNewRepository_expectPendingLoansHistoryAndStatisticsRestored(@TempDir Path journalDirectory) throws Exception {
+        Journal journal = new Journal(journalDirectory, 1 << 20, FsyncPolicy.COMMIT, Duration.ofMillis(10));
+        repository.setJournal(journal);
+        repository.restore();
+        LoanApprovalRequest twoApprovers = generatePendingLoanApprovalRequest(UUID.randomUUID(), "001", 111.01);
+        twoApprovers.getApprovers().add(new Approver("Senior Approver"));
+        repository.saveAsPending(twoApprovers);
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "002", 121.01));
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "003", 131.01));
+        repository.save(generateDecision("OK-XXXX-001", "Senior Approver", APPROVED));
+        repository.save(generateDecision("OK-XXXX-002", "Under €1_000 Approver", APPROVED));
+        assertThrows(BusinessRuleException.class, () -> repository.save(generateDecision("OK-XXXX-002", "Under €1_000 Approver", APPROVED)));
+        List<EventKey> completionKeys = new ArrayList<>(completions.keySet());
+        journal.close();
+
+        stopNotifications();
+        each();
+        repository.setJournal(new Journal(journalDirectory, 1 << 20, FsyncPolicy.COMMIT, Duration.ofMillis(10)));
+        repository.restore();
+
+        assertEquals(2, pendingLoans.size());
+        assertEquals(1, loanHistory.size());
+        assertEquals(completionKeys, new ArrayList<>(completions.keySet()));
+        assertEquals(1, repository.getStatistics(Duration.ofSeconds(60)).getCount());
+        repository.save(generateDecision("OK-XXXX-001", "Under €1_000 Approver", APPROVED));
+        assertEquals(2, repository.getStatistics(Duration.ofSeconds(60)).getCount());
+    }
+
+    @Test
+    public void givenSnapshotAndJournalTail_whenRestoringIntoNewRepository_expectSameLoanBookAndCompletionKeys(@TempDir Path directory) throws Exception {
+        Path journalDirectory = directory.resolve("journal");
+        SnapshotStore snapshotStore = new SnapshotStore(directory.resolve("snapshots"), 2);
+        Journal journal = new Journal(journalDirectory, 1 << 20, FsyncPolicy.NONE, Duration.ZERO);
+        repository.setJournal(journal);
+        repository.setSnapshotStore(snapshotStore);
+        repository.restore();
+        LoanApprovalRequest twoApprovers = generatePendingLoanApprovalRequest(UUID.randomUUID(), "001", 111.01);
+        twoApprovers.getApprovers().add(new Approver("Senior Approver"));
+        repository.saveAsPending(twoApprovers);
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "002", 121.01));
+        repository.save(generateDecision("OK-XXXX-001", "Senior Approver", APPROVED));
+        repository.save(generateDecision("OK-XXXX-002", "Under €1_000 Approver", APPROVED));
+
+        assertEquals(2, repository.snapshot());
+        repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "003", 131.01));
+        repository.save(generateDecision("OK-XXXX-001", "Under €1_000 Approver", APPROVED));
+        List<EventKey> completionKeys = new ArrayList<>(completions.keySet());
+        journal.close();
+
+        stopNotifications();
+        each();
+        repository.setJournal(new Journal(journalDirectory, 1 << 20, FsyncPolicy.NONE, Duration.ZERO));
+        repository.setSnapshotStore(snapshotStore);
+        repository.restore();
+
+        assertEquals(1, pendingLoans.size());
+        assertEquals(PENDING, pendingLoans.get(CustomerId.encode("OK-XXXX-003")).getDecisionState());
+        assertEquals(2, loanHistory.size());
+        assertEquals(completionKeys, new ArrayList<>(completions.keySet()));
+        assertEquals(2, repository.getStatistics(Duration.ofSeconds(60)).getCount());
+        assertThrows(BusinessRuleException.class, () -> repository.save(generateDecision("OK-XXXX-001", "Senior Approver", APPROVED)));
+    }
+
+    @Test
+    public void givenEveryApproverDecidingOnItsOwnThread_whenSavingConcurrently_expectEachLoanCompletedAndNotifiedOnce() throws Exception {
+        final int loans = 2_000;
+        final String[] approvers = {"Approver A", "Approver B", "Approver C", "Approver D"};
+        Set<Approver> allApprovers = new HashSet<>();
+        for (String approver : approvers) {
+            allApprovers.add(new Approver(approver));
+        }
+        for (int i = 0; i < loans; i++) {
+            repository.saveAsPending(LoanApprovalRequest.builder()
+                    .customerId(stressCustomerId(i))
+                    .loanAmount(Amount.ofCents(100_00 + i))
+                    .approvers(allApprovers)
+                    .timestamp(ZonedDateTime.now())
+                    .build());
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2 * approvers.length);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<LoanRecord.Outcome> outcomes = new ConcurrentLinkedQueue<>();
+        for (int thread = 0; thread < 2 * approvers.length; thread++) {
+            String approver = approvers[thread % approvers.length];
+            executorService.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < loans; i++) {
+                        try {
+                            repository.save(generateDecision(stressCustomerId(i), approver, i % 10 == 0 ? DecisionState.DECLINED : APPROVED));
+                            outcomes.add(LoanRecord.Outcome.RECORDED);
+                        } catch (BusinessRuleException e) {
+                            outcomes.add(LoanRecord.Outcome.FINISHED);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(2 * approvers.length * loans, outcomes.size());
+        assertTrue(pendingLoans.isEmpty());
+        assertEquals(loans, loanHistory.size());
+        assertEquals(loans, completions.size());
+        assertEquals(loans - loans / 10, repository.getStatistics(Duration.ofSeconds(60)).getCount());
+        assertTrue(notificationSink.awaitDelivered(loans, 10_000));
+        Thread.sleep(100);
+        Set<String> notified = new HashSet<>();
+        notificationSink.getDelivered().forEach(notification -> assertTrue(notified.add(notification.getCustomerId())));
+        assertEquals(loans, notified.size());
+    }
+
+    private static String stressCustomerId(int i) {
+        return String.format("ST-%04d-XXX", i);
+    }
+
+    @Test
+    public void givenTwoApprovers_whenOneDecidesAndLoansComplete_expectPagesOfLoansStillWaitingForEach() {
+        for (int i = 1; i <= 5; i++) {
+            LoanApprovalRequest request = generatePendingLoanApprovalRequest(UUID.randomUUID(), "00" + i, 100 + i);
+            request.setApprovers(new HashSet<>(Arrays.asList(new Approver("Alice"), new Approver("Bob"))));
+            repository.saveAsPending(request);
+        }
+        repository.save(generateDecision("OK-XXXX-002", "Alice", APPROVED));
+        repository.save(generateDecision("OK-XXXX-003", "Alice", APPROVED));
+        repository.save(generateDecision("OK-XXXX-003", "Bob", APPROVED));
+
+        List<LoanRecord> firstPage = repository.getPendingFor("Alice", null, 2);
+        assertEquals(Arrays.asList("OK-XXXX-001", "OK-XXXX-004"), customerIds(firstPage));
+        assertEquals(Collections.singletonList("OK-XXXX-005"), customerIds(repository.getPendingFor("Alice", "OK-XXXX-004", 2)));
+        assertEquals(Arrays.asList("OK-XXXX-001", "OK-XXXX-002", "OK-XXXX-004", "OK-XXXX-005"),
+                customerIds(repository.getPendingFor("Bob", null, 10)));
+        assertTrue(repository.getPendingFor("Carol", null, 10).isEmpty());
+    }
+
+    @Test
+    public void givenApproversDecidingAllTheirLoans_whenLoansComplete_expectNoApproverLeftInIndex() {
+        for (int i = 1; i <= 3; i++) {
+            LoanApprovalRequest request = generatePendingLoanApprovalRequest(UUID.randomUUID(), "00" + i, 100 + i);
+            request.setApprovers(new HashSet<>(Arrays.asList(new Approver("Alice"), new Approver("Bob"))));
+            repository.saveAsPending(request);
+        }
+        assertEquals(2, repository.approverIndex.approverCount());
+
+        for (int i = 1; i <= 3; i++) {
+            repository.save(generateDecision("OK-XXXX-00" + i, "Alice", APPROVED));
+        }
+        assertEquals(1, repository.approverIndex.approverCount());
+        repository.save(generateDecision("OK-XXXX-001", "Bob", APPROVED));
+        repository.save(generateDecision("OK-XXXX-002", "Bob", DecisionState.DECLINED));
+        repository.save(generateDecision("OK-XXXX-003", "Bob", APPROVED));
+
+        assertEquals(0, repository.approverIndex.approverCount());
+        assertTrue(repository.getPendingFor("Alice", null, 10).isEmpty());
+    }
+
+    @Test
+    public void givenCompletedLoans_whenPagingCompletionsAfterLastKey_expectEveryLoanOfStateOnceInCompletionOrder() {
+        for (int i = 1; i <= 5; i++) {
+            repository.saveAsPending(generatePendingLoanApprovalRequest(UUID.randomUUID(), "00" + i, 100 + i));
+            repository.save(generateDecision("OK-XXXX-00" + i, "Under €1_000 Approver", i == 3 ? DecisionState.DECLINED : APPROVED));
+        }
+        EventKey end = EventKey.first(Long.MAX_VALUE);
+
+        List<Map.Entry<EventKey, LoanRecord>> firstPage = repository.getCompletions(EventKey.first(0), end, APPROVED, 2);
+        EventKey last = firstPage.get(1).getKey();
+        List<Map.Entry<EventKey, LoanRecord>> secondPage = repository.getCompletions(
+                new EventKey(last.getEpochMillis(), last.getSequence() + 1), end, APPROVED, 2);
+
+        assertEquals(Arrays.asList("OK-XXXX-001", "OK-XXXX-002"), customerIds(firstPage.stream().map(Map.Entry::getValue).collect(Collectors.toList())));
+        assertEquals(Arrays.asList("OK-XXXX-004", "OK-XXXX-005"), customerIds(secondPage.stream().map(Map.Entry::getValue).collect(Collectors.toList())));
+        assertEquals(1, repository.getCompletions(EventKey.first(0), end, DecisionState.DECLINED, 10).size());
+        assertTrue(repository.getCompletions(end, EventKey.first(0), null, 10).isEmpty());
+    }
+
+    private static List<String> customerIds(List<LoanRecord> loanRecords) {
+        return loanRecords.stream().map(LoanRecord::getCustomerId).collect(Collectors.toList());
+    }
+
+    private Decision generateDecision(String customerId, String approverUsername, DecisionState state) {
+        return Decision.builder()
+                .customerId(customerId)
+                .approverUsername(approverUsername)
+                .state(state)
                 .build();
-        ConcurrentHashMap<String, Decision> decisions = new ConcurrentHashMap<>();
-        decisions.put("Under €1_000 Approver", pendingDecision);
-        return decisions;
     }
 
     public LoanApprovalRequest generatePendingLoanApprovalRequest(UUID uuid1, String customerIdSuffix, double amount) {
@@ -196,7 +472,7 @@ public class LoanRepositoryTest {
         return LoanApprovalRequest.builder()
                 .uuid(uuid1)
                 .customerId("OK-XXXX-" + customerIdSuffix)
-                .loanAmount(BigDecimal.valueOf(amount))
+                .loanAmount(Amount.of(BigDecimal.valueOf(amount)))
                 .decisionState(PENDING)
                 .approvers(defaultApprover)
                 .timestamp(ZonedDateTime.now().minus(Duration.ofSeconds(10)))
@@ -204,11 +480,11 @@ public class LoanRepositoryTest {
     }
 
     private void printStorage() {
-        if (storage.isEmpty()) {
+        if (pendingLoans.isEmpty()) {
             System.out.println(">----------------------storage :: EMPTY--------------------------------<");
         } else {
             System.out.println("-----------------------storage :: START---------------------------------");
-            storage.forEach((k, v) -> System.out.println(k));
+            pendingLoans.forEach((k, v) -> System.out.println(v));
             System.out.println("-----------------------storage :: END---------------------------------");
         }
     }
@@ -0,0 +1,109 @@
+package com.example.loans.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongConcurrentHashMapTest {
+
+    @Test
+    public void givenRandomPutsAndRemoves_expectSameContentAsHashMap() {
+        LongConcurrentHashMap<String> map = new LongConcurrentHashMap<>(4, 8);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 5_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        AtomicInteger visited = new AtomicInteger();
+        map.forEach((key, value) -> {
+            assertEquals(expected.get(key), value);
+            visited.incrementAndGet();
+        });
+        assertEquals(expected.size(), visited.get());
+    }
+
+    @Test
+    public void givenActionWritingToTheMap_whenVisitingSegments_expectNoLockHeldAndEveryEarlierValueVisited() {
+        LongConcurrentHashMap<String> map = new LongConcurrentHashMap<>(4, 8);
+        for (long key = 1; key <= 100; key++) {
+            map.put(key, "value-" + key);
+        }
+        List<String> visited = new ArrayList<>();
+
+        map.forEachSegment(segment -> {
+            visited.addAll(segment);
+            segment.forEach(value -> map.remove(Long.parseLong(value.substring(6))));
+        });
+
+        assertEquals(100, visited.size());
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void givenPutIfAbsentAndConditionalRemove_expectOnlyMatchingValuesAffected() {
+        LongConcurrentHashMap<String> map = new LongConcurrentHashMap<>();
+        String first = "first";
+
+        assertNull(map.putIfAbsent(7, first));
+        assertSame(first, map.putIfAbsent(7, "second"));
+        assertFalse(map.remove(7, new String("first")));
+        assertTrue(map.remove(7, first));
+        assertTrue(map.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, "zero"));
+    }
+
+    @Test
+    public void givenConcurrentWriters_whenPuttingIfAbsentSameKeys_expectExactlyOneWinnerPerKey() throws InterruptedException {
+        LongConcurrentHashMap<Integer> map = new LongConcurrentHashMap<>(8, 16);
+        int threads = 4;
+        int keys = 20_000;
+        AtomicInteger winners = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            executorService.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (long key = 1; key <= keys; key++) {
+                    if (map.putIfAbsent(key, thread) == null) {
+                        winners.incrementAndGet();
+                    }
+                    assertNotNull(map.get(key));
+                }
+            });
+        }
+        start.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(keys, winners.get());
+        assertEquals(keys, map.size());
+    }
+}
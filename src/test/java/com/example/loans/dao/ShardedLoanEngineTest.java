@@ -0,0 +1,216 @@
+package com.example.loans.dao;
+
+import com.example.loans.exception.BusinessRuleException;
+import com.example.loans.finance.Amount;
+import com.example.loans.finance.SlidingWindowStatistics;
+import com.example.loans.model.*;
+import com.example.loans.notification.NotificationPipeline;
+import com.example.loans.notification.OverflowPolicy;
+import com.example.loans.notification.StubNotificationSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+import static com.example.loans.model.DecisionState.DECLINED;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedLoanEngineTest {
+
+    LongConcurrentHashMap<LoanRecord> pendingLoans;
+    ConcurrentHashMap<UUID, LoanRecord> loanHistory;
+    SlidingWindowStatistics contractStatistics;
+    StubNotificationSink notificationSink;
+    NotificationPipeline notificationPipeline;
+    ShardedLoanEngine engine;
+    LoanRepository repository;
+
+    @BeforeEach
+    public void each() throws IOException {
+        pendingLoans = new LongConcurrentHashMap<>();
+        loanHistory = new ConcurrentHashMap<>();
+        contractStatistics = new SlidingWindowStatistics(Duration.ofSeconds(60));
+        notificationSink = new StubNotificationSink();
+        notificationPipeline = new NotificationPipeline(notificationSink, new ObjectMapper(), 10_000, OverflowPolicy.BLOCK,
+                100, 3, Duration.ofMillis(10), "notifications.spill");
+        notificationPipeline.start();
+        engine = new ShardedLoanEngine(pendingLoans, contractStatistics, 4, 16);
+        engine.start();
+        repository = new LoanRepository(pendingLoans, loanHistory,
+                new ConcurrentSkipListMap<>(), contractStatistics, notificationPipeline);
+        repository.setEngine(engine);
+    }
+
+    @AfterEach
+    public void stop() throws InterruptedException {
+        engine.stop();
+        notificationPipeline.stop();
+    }
+
+    @Test
+    public void givenMoreCommandsThanRingSlots_whenSubmittingFromManyThreads_expectAllRunInSubmitOrderPerCaller() throws Exception {
+        int callers = 4;
+        int commands = 10_000;
+        long customerCode = CustomerId.encode("AB-0000-001");
+        Map<Integer, List<Integer>> executed = new HashMap<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(callers);
+        List<Future<CompletableFuture<Integer>>> lastCommands = new ArrayList<>();
+        for (int caller = 0; caller < callers; caller++) {
+            int id = caller;
+            executed.put(id, new ArrayList<>());
+            lastCommands.add(executorService.submit(() -> {
+                CompletableFuture<Integer> last = null;
+                for (int i = 0; i < commands; i++) {
+                    int command = i;
+                    last = engine.submit(customerCode, shard -> {
+                        executed.get(id).add(command);
+                        return command;
+                    });
+                }
+                return last;
+            }));
+        }
+        for (Future<CompletableFuture<Integer>> last : lastCommands) {
+            assertEquals(commands - 1, last.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS));
+        }
+        executorService.shutdown();
+
+        for (List<Integer> callerCommands : executed.values()) {
+            assertEquals(commands, callerCommands.size());
+            for (int i = 0; i < commands; i++) {
+                assertEquals(i, callerCommands.get(i));
+            }
+        }
+        assertEquals(0, engine.getShard(engine.shardOf(customerCode)).getQueueDepth());
+    }
+
+    @Test
+    public void givenCallersSubmittingWhileStopping_whenEngineStops_expectEveryFutureCompleted() throws Exception {
+        int callers = 4;
+        long customerCode = CustomerId.encode("AB-0000-001");
+        ExecutorService executorService = Executors.newFixedThreadPool(callers);
+        List<Future<List<CompletableFuture<Integer>>>> submitted = new ArrayList<>();
+        CountDownLatch started = new CountDownLatch(callers);
+        for (int caller = 0; caller < callers; caller++) {
+            submitted.add(executorService.submit(() -> {
+                List<CompletableFuture<Integer>> futures = new ArrayList<>();
+                started.countDown();
+                CompletableFuture<Integer> last;
+                do {
+                    last = engine.submit(customerCode, shard -> 1);
+                    futures.add(last);
+                } while (!last.isCompletedExceptionally());
+                return futures;
+            }));
+        }
+        started.await();
+        engine.stop();
+        executorService.shutdown();
+
+        for (Future<List<CompletableFuture<Integer>>> futures : submitted) {
+            for (CompletableFuture<Integer> future : futures.get(10, TimeUnit.SECONDS)) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+        }
+        ExecutionException stopped = assertThrows(ExecutionException.class, () -> engine.submit(customerCode, shard -> 1).get());
+        assertTrue(stopped.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void givenShardedEngine_whenDecidingConcurrently_expectEachLoanCompletedOnceAndStatisticsMerged() throws Exception {
+        int loans = 1_000;
+        String[] approvers = {"Approver A", "Approver B"};
+        List<LoanApprovalRequest> requests = new ArrayList<>();
+        for (int i = 0; i < loans; i++) {
+            requests.add(LoanApprovalRequest.builder()
+                    .customerId(String.format("SH-%04d-XXX", i))
+                    .loanAmount(Amount.ofCents(100_00))
+                    .approvers(new HashSet<>(Arrays.asList(new Approver(approvers[0]), new Approver(approvers[1]))))
+                    .timestamp(ZonedDateTime.now())
+                    .build());
+        }
+        boolean[] saved = repository.saveAllAsPending(requests);
+        for (boolean s : saved) {
+            assertTrue(s);
+        }
+        assertThrows(BusinessRuleException.class, () -> repository.saveAsPending(requests.get(0)));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2 * approvers.length);
+        for (int thread = 0; thread < 2 * approvers.length; thread++) {
+            String approver = approvers[thread % approvers.length];
+            executorService.execute(() -> {
+                for (int i = 0; i < loans; i++) {
+                    try {
+                        repository.save(Decision.builder()
+                                .customerId(String.format("SH-%04d-XXX", i))
+                                .approverUsername(approver)
+                                .state(i % 4 == 0 ? DECLINED : APPROVED)
+                                .build());
+                    } catch (BusinessRuleException e) {
+                        // the other thread of the same approver completed the loan first
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, pendingLoans.size());
+        assertEquals(loans, loanHistory.size());
+        Statistics statistics = repository.getStatistics(Duration.ofSeconds(60));
+        assertEquals(loans - loans / 4, statistics.getCount());
+        assertEquals(0, contractStatistics.snapshot(Duration.ofSeconds(60)).getCount());
+        assertTrue(notificationSink.awaitDelivered(loans, 10_000));
+        assertEquals(loans, notificationSink.getDelivered().size());
+    }
+
+    @Test
+    public void givenShardedEngine_whenSavingDecisionBatch_expectSameOutcomesAsOnCallingThread() {
+        repository.saveAsPending(LoanApprovalRequest.builder()
+                .customerId("SH-0000-001")
+                .loanAmount(Amount.ofCents(111_01))
+                .approvers(new HashSet<>(Arrays.asList(new Approver("Junior"), new Approver("Senior"))))
+                .timestamp(ZonedDateTime.now())
+                .build());
+        repository.saveAsPending(LoanApprovalRequest.builder()
+                .customerId("SH-0000-002")
+                .loanAmount(Amount.ofCents(121_01))
+                .approvers(new HashSet<>(Collections.singletonList(new Approver("Junior"))))
+                .timestamp(ZonedDateTime.now())
+                .build());
+
+        LoanRecord.Outcome[] outcomes = repository.saveAll(Arrays.asList(
+                decision("SH-0000-001", "Junior"),
+                decision("SH-0000-002", "Junior"),
+                decision("SH-0000-001", "Stranger"),
+                decision("SH-0000-009", "Junior"),
+                decision("SH-0000-001", "Senior")));
+
+        assertArrayEquals(new LoanRecord.Outcome[]{
+                LoanRecord.Outcome.RECORDED,
+                LoanRecord.Outcome.APPROVED,
+                LoanRecord.Outcome.UNKNOWN_APPROVER,
+                LoanRecord.Outcome.FINISHED,
+                LoanRecord.Outcome.APPROVED}, outcomes);
+        assertEquals(2, repository.getStatistics(Duration.ofSeconds(60)).getCount());
+    }
+
+    private static Decision decision(String customerId, String approverUsername) {
+        return Decision.builder()
+                .customerId(customerId)
+                .approverUsername(approverUsername)
+                .state(APPROVED)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.loans.feed;
+
+import com.example.loans.exception.BusinessRuleException;
+import com.example.loans.finance.Amount;
+import com.example.loans.model.Approver;
+import com.example.loans.model.Decision;
+import com.example.loans.model.LoanApprovalRequest;
+import com.example.loans.model.LoanRecord;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeFeedTest {
+
+    ChangeFeed changeFeed = new ChangeFeed(8, Duration.ofMillis(10));
+
+    @Test
+    public void givenLoanLifeCycle_whenReadingFromOffset_expectConsecutiveEventsToResumeFrom() {
+        LoanRecord loan = loanRecord();
+        changeFeed.created(loan, 1000);
+        loan.decide("Alice", APPROVED);
+        changeFeed.decided(loan, Decision.builder().approverUsername("Alice").state(APPROVED).build(), 2000);
+        changeFeed.completed(loan, 3000);
+
+        List<ChangeEvent> first = changeFeed.read(0, 2);
+        assertEquals(2, first.size());
+        assertEquals(ChangeType.CREATED, first.get(0).getType());
+        assertEquals(Collections.singletonList("Alice"), first.get(0).getApprovers());
+        assertEquals("Alice", first.get(1).getApprover());
+        assertNull(first.get(1).getAmount());
+
+        List<ChangeEvent> rest = changeFeed.read(first.get(1).getOffset() + 1, 2);
+        assertEquals(1, rest.size());
+        assertEquals(2, rest.get(0).getOffset());
+        assertEquals(ChangeType.COMPLETED, rest.get(0).getType());
+        assertEquals(APPROVED, rest.get(0).getState());
+        assertTrue(changeFeed.read(3, 2).isEmpty());
+    }
+
+    @Test
+    public void givenReaderBehindCapacity_whenReading_expectSkipToOldestEventHeld() {
+        LoanRecord loan = loanRecord();
+        for (int i = 0; i < 20; i++) {
+            changeFeed.created(loan, i);
+        }
+
+        List<ChangeEvent> events = changeFeed.read(0, 100);
+
+        assertEquals(12, changeFeed.getOldestOffset());
+        assertEquals(8, events.size());
+        assertEquals(12, events.get(0).getOffset());
+        assertEquals(19, events.get(7).getOffset());
+    }
+
+    @Test
+    public void givenSubscriberRequestingOneBatch_whenStreaming_expectNextBatchOnlyOnRequestAndNewEventsPolled() {
+        LoanRecord loan = loanRecord();
+        for (int i = 0; i < 5; i++) {
+            changeFeed.created(loan, i);
+        }
+
+        StepVerifier.create(changeFeed.stream(1, 2).map(batch -> batch.stream()
+                .map(ChangeEvent::getOffset)
+                .collect(Collectors.toList())), 1)
+                .expectNext(offsets(1, 2))
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenRequest(2)
+                .expectNext(offsets(3, 4))
+                .then(() -> changeFeed.created(loan, 5))
+                .expectNext(offsets(5))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void givenBatchSizeOutOfRange_whenStreaming_expectRejected() {
+        assertThrows(BusinessRuleException.class, () -> changeFeed.stream(0, ChangeFeed.MAX_BATCH + 1));
+    }
+
+    private static List<Long> offsets(long... offsets) {
+        return Arrays.stream(offsets).boxed().collect(Collectors.toList());
+    }
+
+    private static LoanRecord loanRecord() {
+        return LoanRecord.pending(LoanApprovalRequest.builder()
+                .uuid(UUID.randomUUID())
+                .customerId("XX-XXXX-X5X")
+                .loanAmount(Amount.ofCents(12345))
+                .approvers(Collections.singleton(new Approver("Alice")))
+                .build());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.loans.finance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AmountDistributionTest {
+
+    @Test
+    public void givenBucketHistogramsWithManyDistinctAmounts_whenMerging_expectExactCountPerCent() {
+        AmountHistogram first = new AmountHistogram();
+        AmountHistogram second = new AmountHistogram();
+        for (int cents = 1; cents <= 5_000; cents++) {
+            first.accept(cents);
+            first.accept(cents);
+            second.accept(cents * 7);
+        }
+        assertEquals(5_000, first.size());
+
+        AmountDistribution distribution = new AmountDistribution();
+        first.addTo(distribution);
+        second.addTo(distribution);
+
+        assertEquals(15_000, distribution.getTotal());
+        List<long[]> counts = new ArrayList<>();
+        distribution.forEach((cents, count) -> counts.add(new long[]{cents, count}));
+        assertEquals(5_000 + 5_000 - 5_000 / 7, counts.size());
+        assertArrayEquals(new long[]{1, 2}, counts.get(0));
+        assertArrayEquals(new long[]{7, 3}, counts.get(6));
+        assertArrayEquals(new long[]{35_000, 1}, counts.get(counts.size() - 1));
+    }
+
+    @Test
+    public void givenAmountsFrom1To100Cents_whenReadingPercentiles_expectNearestRank() {
+        AmountHistogram histogram = new AmountHistogram();
+        for (int cents = 100; cents >= 1; cents--) {
+            histogram.accept(cents);
+        }
+        AmountDistribution distribution = new AmountDistribution();
+        histogram.addTo(distribution);
+
+        assertArrayEquals(new long[]{1, 50, 90, 99, 100}, distribution.percentiles(0, 500, 900, 990, 1000));
+        assertArrayEquals(new long[]{0, 0, 0}, new AmountDistribution().percentiles(500, 900, 990));
+    }
+
+    @Test
+    public void givenResetHistogramAndAmountsOutOfRange_whenMerging_expectOnlyNewAmountsClamped() {
+        AmountHistogram histogram = new AmountHistogram();
+        histogram.accept(500);
+        histogram.reset();
+        histogram.accept(AmountHistogram.MAX_CENTS + 1);
+        histogram.accept(-1);
+        AmountDistribution distribution = new AmountDistribution();
+        histogram.addTo(distribution);
+
+        assertEquals(2, distribution.getTotal());
+        assertArrayEquals(new long[]{0, AmountHistogram.MAX_CENTS}, distribution.percentiles(500, 1000));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.loans.finance;
+
+import com.example.loans.model.Statistics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AmountSummaryStatisticsTest {
+
+    @Test
+    public void testAgainstBigDecimalSummaryStatistics() {
+        AmountSummaryStatistics cents = new AmountSummaryStatistics();
+        BigDecimalSummaryStatistics decimals = new BigDecimalSummaryStatistics();
+
+        for (int i = 0; i < 20; i++) {
+            BigDecimal amount = BigDecimal.valueOf(12301 + i * 137, 2);
+            cents.accept(Amount.toCents(amount));
+            decimals.accept(amount);
+        }
+
+        assertEquals(20, cents.getCount());
+        assertEquals(decimals.getSum(), BigDecimal.valueOf(cents.getSum(), 2));
+        assertEquals(decimals.getMin(), BigDecimal.valueOf(cents.getMin(), 2));
+        assertEquals(decimals.getMax(), BigDecimal.valueOf(cents.getMax(), 2));
+        assertEquals(decimals.getAvg().setScale(2, RoundingMode.HALF_EVEN), BigDecimal.valueOf(cents.getAvg(), 2));
+    }
+
+    @Test
+    public void testAvgRoundsHalfEvenToCents() {
+        assertEquals(1000, avg(1000, 1001));
+        assertEquals(1002, avg(1001, 1002));
+        assertEquals(334, avg(333, 334, 334));
+        assertEquals(0, new AmountSummaryStatistics().getAvg());
+    }
+
+    @Test
+    public void testMergeAndReset() {
+        AmountSummaryStatistics first = statistics(500, 100);
+        AmountSummaryStatistics second = statistics(50, 900);
+
+        first.merge(second).merge(new AmountSummaryStatistics());
+
+        assertEquals(4, first.getCount());
+        assertEquals(1550, first.getSum());
+        assertEquals(50, first.getMin());
+        assertEquals(900, first.getMax());
+
+        first.reset();
+        first.accept(7);
+        assertEquals(1, first.getCount());
+        assertEquals(7, first.getMin());
+        assertEquals(7, first.getMax());
+    }
+
+    @Test
+    public void testStatisticsJsonRendersCents() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertEquals("{\"count\":0,\"sum\":0.00,\"avg\":0.00,\"max\":0.00,\"min\":0.00}",
+                mapper.writeValueAsString(Statistics.of(new AmountSummaryStatistics())));
+        assertEquals("{\"count\":3,\"sum\":443.45,\"avg\":147.82,\"max\":200.00,\"min\":120.00}",
+                mapper.writeValueAsString(Statistics.of(statistics(12345, 20000, 12000))));
+        assertEquals("{\"count\":1,\"sum\":100.50,\"avg\":100.50,\"max\":100.50,\"min\":100.50}",
+                mapper.writeValueAsString(Statistics.of(statistics(10050))));
+        assertEquals("123.40", Amount.of(new BigDecimal("123.40")).toString());
+    }
+
+    private static long avg(long... cents) {
+        return statistics(cents).getAvg();
+    }
+
+    private static AmountSummaryStatistics statistics(long... cents) {
+        AmountSummaryStatistics statistics = new AmountSummaryStatistics();
+        for (long c : cents) {
+            statistics.accept(c);
+        }
+        return statistics;
+    }
+}
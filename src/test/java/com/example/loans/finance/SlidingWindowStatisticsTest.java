@@ -0,0 +1,120 @@
+package com.example.loans.finance;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SlidingWindowStatisticsTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final SlidingWindowStatistics window = new SlidingWindowStatistics(Duration.ofSeconds(60), clock);
+
+    @Test
+    public void given3AmountsWithin1MinAnd2Outside_whenTakingSnapshot_expectStatisticsFor3Amounts() {
+        clock.set(0);
+        window.record(15101);
+        clock.set(24_000);
+        window.record(14101);
+        clock.set(60_000);
+        window.record(13101);
+        clock.set(70_000);
+        window.record(12101);
+        clock.set(80_000);
+        window.record(11101);
+        clock.set(90_000);
+
+        AmountSummaryStatistics statistics = window.snapshot(Duration.ofSeconds(60));
+
+        assertEquals(3, statistics.getCount());
+        assertEquals(36303, statistics.getSum());
+        assertEquals(11101, statistics.getMin());
+        assertEquals(13101, statistics.getMax());
+    }
+
+    @Test
+    public void givenBucketReusedAfterFullRotation_whenTakingSnapshot_expectOldAmountsDiscarded() {
+        clock.set(5_000);
+        window.record(10000);
+        window.record(20000);
+        clock.set(65_000);
+        window.record(30000);
+
+        AmountSummaryStatistics statistics = window.snapshot(Duration.ofSeconds(60));
+
+        assertEquals(1, statistics.getCount());
+        assertEquals(30000, statistics.getSum());
+    }
+
+    @Test
+    public void givenShorterPeriodThanWindow_whenTakingSnapshot_expectOnlyRecentBuckets() {
+        clock.set(10_000);
+        window.record(10000);
+        clock.set(50_000);
+        window.record(20000);
+
+        assertEquals(1, window.snapshot(Duration.ofSeconds(10)).getCount());
+        assertEquals(2, window.snapshot(Duration.ofSeconds(60)).getCount());
+    }
+
+    @Test
+    public void givenAmountsOverTwoHours_whenTakingSnapshotsOfAnyPeriod_expectSameAsSummingEveryAmount() {
+        SlidingWindowStatistics rollups = new SlidingWindowStatistics(Duration.ofHours(2), clock);
+        long[] seconds = new long[2_000];
+        long[] cents = new long[seconds.length];
+        for (int i = 0; i < seconds.length; i++) {
+            seconds[i] = 1_000_000 + i * 7_207L / 2;
+            cents[i] = 100 + i;
+            clock.set(seconds[i] * 1000);
+            rollups.record(cents[i]);
+        }
+        long now = seconds[seconds.length - 1];
+        clock.set(now * 1000 + 500);
+
+        for (long period : new long[]{1, 59, 60, 61, 3599, 3600, 3661, 5000, 7199, 7200, 10_000}) {
+            AmountSummaryStatistics expected = new AmountSummaryStatistics();
+            for (int i = 0; i < seconds.length; i++) {
+                if (seconds[i] > now - Math.min(period, 7200)) {
+                    expected.accept(cents[i]);
+                }
+            }
+            AmountSummaryStatistics statistics = rollups.snapshot(Duration.ofSeconds(period));
+            assertEquals(expected.getCount(), statistics.getCount(), "count of " + period + "s");
+            assertEquals(expected.getSum(), statistics.getSum(), "sum of " + period + "s");
+            assertEquals(expected.getMin(), statistics.getMin(), "min of " + period + "s");
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private long millis;
+
+        void set(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.loans.journal;
+
+import com.example.loans.model.Approver;
+import com.example.loans.model.DecisionState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenRecordsOverSeveralSegments_whenReopening_expectAllReplayedInOrder() {
+        Journal journal = new Journal(directory, 64, FsyncPolicy.COMMIT, Duration.ofMillis(10));
+        journal.open(record -> fail("empty journal"));
+        for (int i = 0; i < 20; i++) {
+            assertTrue(journal.append(0, payload("record-" + i), () -> true));
+        }
+        assertFalse(journal.append(0, payload("rejected"), () -> false));
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        Journal reopened = new Journal(directory, 64, FsyncPolicy.COMMIT, Duration.ofMillis(10));
+        assertEquals(20, reopened.open(record -> replayed.add(StandardCharsets.UTF_8.decode(record).toString())));
+        reopened.append(0, payload("record-20"), () -> true);
+        reopened.close();
+
+        assertEquals("record-0", replayed.get(0));
+        assertEquals("record-19", replayed.get(19));
+        assertTrue(segments() > 1);
+        assertEquals(21, new Journal(directory, 64, FsyncPolicy.NONE, Duration.ZERO).open(record -> { }));
+    }
+
+    @Test
+    public void givenTornLastRecord_whenReopening_expectRecordsBeforeItReplayedAndTailOverwritten() throws Exception {
+        Journal journal = new Journal(directory, 1024, FsyncPolicy.INTERVAL, Duration.ofMillis(10));
+        journal.open(record -> { });
+        journal.append(0, payload("first"), () -> true);
+        journal.append(0, payload("second"), () -> true);
+        journal.close();
+
+        try (RandomAccessFile segment = new RandomAccessFile(directory.resolve(String.format("%020d.journal", 0)).toFile(), "rw")) {
+            segment.seek(8 + 5 + 8 + 2);
+            segment.write('X');
+        }
+
+        Journal reopened = new Journal(directory, 1024, FsyncPolicy.INTERVAL, Duration.ofMillis(10));
+        assertEquals(1, reopened.open(record -> { }));
+        reopened.append(0, payload("third"), () -> true);
+        reopened.close();
+
+        List<String> replayed = new ArrayList<>();
+        new Journal(directory, 1024, FsyncPolicy.NONE, Duration.ZERO)
+                .open(record -> replayed.add(StandardCharsets.UTF_8.decode(record).toString()));
+        assertEquals(2, replayed.size());
+        assertEquals("third", replayed.get(1));
+    }
+
+    @Test
+    public void givenNextSegmentCannotBeOpened_whenRolling_expectChangeNotAppliedAndJournalStillWritable() throws Exception {
+        Journal journal = new Journal(directory, 64, FsyncPolicy.COMMIT, Duration.ofMillis(10));
+        journal.open(record -> { });
+        for (int i = 0; i < 4; i++) {
+            assertTrue(journal.append(i, payload("record-" + i), () -> true));
+        }
+        Path next = Files.createDirectory(directory.resolve(String.format("%020d.journal", 1)));
+        AtomicBoolean applied = new AtomicBoolean();
+
+        assertThrows(JournalException.class, () -> journal.append(4, payload("record-4"), () -> applied.getAndSet(true) || true));
+        assertFalse(applied.get());
+        Files.delete(next);
+        assertTrue(journal.append(4, payload("record-4"), () -> true));
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        new Journal(directory, 64, FsyncPolicy.NONE, Duration.ZERO)
+                .open(record -> replayed.add(StandardCharsets.UTF_8.decode(record).toString()));
+        assertEquals(Arrays.asList("record-0", "record-1", "record-2", "record-3", "record-4"), replayed);
+    }
+
+    @Test
+    public void givenConcurrentAppendsOfDifferentKeys_whenReopening_expectEveryAppliedRecordReplayedInKeyOrder() throws Exception {
+        Journal journal = new Journal(directory, 4096, FsyncPolicy.COMMIT, Duration.ofMillis(1));
+        journal.open(record -> { });
+        int keys = 8;
+        int perKey = 500;
+        ExecutorService executorService = Executors.newFixedThreadPool(keys);
+        for (int key = 0; key < keys; key++) {
+            int k = key;
+            executorService.execute(() -> {
+                for (int i = 0; i < perKey; i++) {
+                    journal.append(k, payload(k + ":" + i), () -> true);
+                    journal.append(k, payload("rejected"), () -> false);
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(30, TimeUnit.SECONDS));
+        journal.close();
+
+        int[] next = new int[keys];
+        assertEquals(keys * perKey, new Journal(directory, 4096, FsyncPolicy.NONE, Duration.ZERO).open(record -> {
+            String[] value = StandardCharsets.UTF_8.decode(record).toString().split(":");
+            assertEquals(next[Integer.parseInt(value[0])]++, Integer.parseInt(value[1]));
+        }));
+    }
+
+    private static ByteBuffer payload(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void givenApproverNameLongerThanLimit_whenEncodingDecision_expectRejectedInsteadOfTruncated() {
+        String name = String.join("", Collections.nCopies(Approver.MAX_NAME_BYTES + 1, "x"));
+
+        assertThrows(IllegalArgumentException.class, () -> LoanEvents.decision(1, name, DecisionState.APPROVED, 0, 0));
+    }
+
+    private long segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
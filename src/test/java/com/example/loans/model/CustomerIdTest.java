@@ -0,0 +1,29 @@
+package com.example.loans.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerIdTest {
+
+    @Test
+    public void givenValidCustomerIds_whenEncodingAndDecoding_expectSameIdAndDistinctCodes() {
+        String[] customerIds = {"00-0000-000", "zz-zzzz-zzz", "XX-XXXX-X5X", "xx-XXXX-X5X", "Ab-12cD-9zZ"};
+
+        for (String customerId : customerIds) {
+            long encoded = CustomerId.encode(customerId);
+            assertNotEquals(0, encoded);
+            assertEquals(customerId, CustomerId.decode(encoded));
+        }
+        assertNotEquals(CustomerId.encode("XX-XXXX-X5X"), CustomerId.encode("xx-XXXX-X5X"));
+    }
+
+    @Test
+    public void givenInvalidCustomerIds_whenEncoding_expectIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> CustomerId.encode(null));
+        assertThrows(IllegalArgumentException.class, () -> CustomerId.encode("XX-XX-X7X"));
+        assertThrows(IllegalArgumentException.class, () -> CustomerId.encode("XX_XXXX-X7X"));
+        assertThrows(IllegalArgumentException.class, () -> CustomerId.encode("XX-XXXX-X€X"));
+        assertThrows(IllegalArgumentException.class, () -> CustomerId.decode(0));
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.loans.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistoryCursorTest {
+
+    @Test
+    public void givenCursor_whenEncodingAndDecoding_expectSamePosition() {
+        HistoryCursor cursor = HistoryCursor.of(new EventKey(1_600_000_000_123L, -42), 7);
+
+        String encoded = cursor.encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+        assertEquals(cursor, HistoryCursor.decode(encoded));
+        assertThrows(IllegalArgumentException.class, () -> HistoryCursor.decode("not-a-cursor"));
+    }
+
+    @Test
+    public void givenCursorOfNode1_whenResumingOnEveryNode_expectOnlyKeysAfterItInClusterOrder() {
+        HistoryCursor cursor = new HistoryCursor(1000, 1, 5);
+
+        assertEquals(EventKey.first(1001), cursor.nextKey(0));
+        assertEquals(new EventKey(1000, 6), cursor.nextKey(1));
+        assertEquals(EventKey.first(1000), cursor.nextKey(2));
+        assertTrue(new HistoryCursor(1000, 2, 0).compareTo(cursor) > 0);
+        assertTrue(new HistoryCursor(1000, 0, 9).compareTo(cursor) < 0);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.loans.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoanIdGeneratorTest {
+
+    @Test
+    public void givenFourThreadsInTheSameMillisecond_whenGeneratingIds_expectNoDuplicates() throws InterruptedException {
+        LoanIdGenerator idGenerator = new LoanIdGenerator(7);
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(idGenerator.next(1_600_000_000_000L));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(40_000, ids.size());
+    }
+
+    @Test
+    public void givenIdsOfDifferentNodesAndTimes_whenComparing_expectOrderedByTimeThenNode() {
+        UUID first = new LoanIdGenerator(2).next(1_000);
+        UUID sameTimeOtherNode = new LoanIdGenerator(3).next(1_000);
+        UUID later = new LoanIdGenerator(1).next(1_001);
+
+        assertNotEquals(first, sameTimeOtherNode);
+        assertTrue(first.compareTo(sameTimeOtherNode) < 0);
+        assertTrue(sameTimeOtherNode.compareTo(later) < 0);
+        assertThrows(IllegalArgumentException.class, () -> new LoanIdGenerator(LoanIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    public void givenKeysOfTheSameMillisecond_whenComparing_expectSequenceOrderAndFirstBeforeAll() {
+        EventKey key = new EventKey(1_000, 5);
+
+        assertTrue(key.compareTo(new EventKey(1_000, 6)) < 0);
+        assertTrue(key.compareTo(new EventKey(999, 7)) > 0);
+        assertTrue(EventKey.first(1_000).compareTo(new EventKey(1_000, Long.MIN_VALUE + 1)) < 0);
+        assertEquals(0, key.compareTo(new EventKey(1_000, 5)));
+    }
+}
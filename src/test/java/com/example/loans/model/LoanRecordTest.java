@@ -0,0 +1,62 @@
+package com.example.loans.model;
+
+import com.example.loans.finance.Amount;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.UUID;
+
+import static com.example.loans.model.DecisionState.*;
+import static com.example.loans.model.LoanRecord.Outcome;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LoanRecordTest {
+
+    @Test
+    public void givenThreeApprovers_whenAllApprove_expectOnlyLastDecisionCompletesLoan() {
+        LoanRecord loanRecord = loanRecord("Alice", "Bob", "Carol");
+
+        assertEquals(Outcome.RECORDED, loanRecord.decide("Alice", APPROVED));
+        assertEquals(Outcome.RECORDED, loanRecord.decide("Bob", APPROVED));
+        assertEquals(PENDING, loanRecord.getDecisionState());
+        assertEquals(PENDING, loanRecord.getDecisionOf(2));
+        assertEquals(Outcome.APPROVED, loanRecord.decide("Carol", APPROVED));
+
+        assertEquals(APPROVED, loanRecord.getDecisionState());
+        assertEquals(Outcome.FINISHED, loanRecord.decide("Carol", DECLINED));
+        assertEquals(APPROVED, loanRecord.getDecisionState());
+    }
+
+    @Test
+    public void givenMixedDecisions_whenApproverChangesMind_expectLatestDecisionCounts() {
+        LoanRecord loanRecord = loanRecord("Alice", "Bob");
+
+        assertEquals(Outcome.RECORDED, loanRecord.decide("Alice", APPROVED));
+        assertEquals(Outcome.RECORDED, loanRecord.decide("Bob", DECLINED));
+        assertEquals(APPROVED, loanRecord.getDecisionOf(0));
+        assertEquals(DECLINED, loanRecord.getDecisionOf(1));
+        assertEquals(Outcome.DECLINED, loanRecord.decide("Alice", DECLINED));
+
+        assertEquals(DECLINED, loanRecord.getDecisionState());
+    }
+
+    @Test
+    public void givenUnknownApprover_whenDeciding_expectRejected() {
+        LoanRecord loanRecord = loanRecord("Alice");
+
+        assertEquals(Outcome.UNKNOWN_APPROVER, loanRecord.decide("Mallory", APPROVED));
+        assertEquals(PENDING, loanRecord.getDecisionState());
+    }
+
+    private static LoanRecord loanRecord(String... approvers) {
+        LinkedHashSet<Approver> approverSet = new LinkedHashSet<>();
+        Arrays.stream(approvers).map(Approver::new).forEach(approverSet::add);
+        return LoanRecord.pending(LoanApprovalRequest.builder()
+                .uuid(UUID.randomUUID())
+                .customerId("XX-XXXX-X5X")
+                .loanAmount(Amount.ofCents(12345))
+                .approvers(approverSet)
+                .build());
+    }
+}
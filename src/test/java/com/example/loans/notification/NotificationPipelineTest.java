@@ -0,0 +1,171 @@
+package com.example.loans.notification;
+
+import com.example.loans.finance.Amount;
+import com.example.loans.model.Approver;
+import com.example.loans.model.LoanApprovalRequest;
+import com.example.loans.model.LoanRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NotificationPipelineTest {
+
+    private final StubNotificationSink sink = new StubNotificationSink();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void givenFailingSink_whenDelivering_expectBatchRetriedAndDelivered() throws Exception {
+        NotificationPipeline pipeline = pipeline(10, OverflowPolicy.BLOCK);
+        sink.failNext(2);
+        pipeline.start();
+
+        pipeline.submitAll(Arrays.asList(completedLoan("NO-TIFY-001"), completedLoan("NO-TIFY-002")));
+
+        assertTrue(sink.awaitDelivered(2, 5_000));
+        pipeline.stop();
+        assertEquals(2, pipeline.getRetries());
+        assertEquals(2, pipeline.getDelivered());
+        assertEquals(0, pipeline.getFailed());
+        assertEquals(APPROVED, sink.getDelivered().peek().getDecisionState());
+    }
+
+    @Test
+    public void givenFullQueueAndShedPolicy_whenSubmitting_expectOverflowDroppedAndCounted() throws Exception {
+        NotificationPipeline pipeline = pipeline(2, OverflowPolicy.SHED);
+
+        for (int i = 1; i <= 5; i++) {
+            pipeline.submit(completedLoan("NO-TIFY-00" + i));
+        }
+
+        assertEquals(2, pipeline.getQueueDepth());
+        assertEquals(3, pipeline.getDropped());
+        pipeline.start();
+        assertTrue(sink.awaitDelivered(2, 5_000));
+        pipeline.stop();
+        assertEquals(2, sink.getDelivered().size());
+    }
+
+    @Test
+    public void givenFullQueueAndSpillPolicy_whenQueueDrains_expectSpilledNotificationsDelivered() throws Exception {
+        NotificationPipeline pipeline = pipeline(2, OverflowPolicy.SPILL);
+
+        for (int i = 1; i <= 5; i++) {
+            pipeline.submit(completedLoan("NO-TIFY-00" + i));
+        }
+
+        assertEquals(3, pipeline.getSpilled());
+        assertEquals(3, pipeline.getSpillBacklog());
+        pipeline.start();
+        assertTrue(sink.awaitDelivered(5, 5_000));
+        pipeline.stop();
+        assertEquals(0, pipeline.getDropped());
+        assertEquals(0, pipeline.getSpillBacklog());
+    }
+
+    @Test
+    public void givenLeftoverReplayFileWithMalformedLine_whenStarting_expectItsNotificationsDeliveredWithNewSpills() throws Exception {
+        NotificationPipeline previous = pipeline(1, OverflowPolicy.SPILL);
+        previous.submit(completedLoan("NO-TIFY-001"));
+        previous.submit(completedLoan("NO-TIFY-002"));
+        previous.stop();
+        Path spillFile = tempDir.resolve("notifications.spill");
+        Files.move(spillFile, tempDir.resolve("notifications.spill.replay"));
+        Files.write(tempDir.resolve("notifications.spill.replay"), "{not json\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        NotificationPipeline pipeline = pipeline(1, OverflowPolicy.SPILL);
+        pipeline.submit(completedLoan("NO-TIFY-003"));
+        pipeline.submit(completedLoan("NO-TIFY-004"));
+        pipeline.start();
+
+        assertTrue(sink.awaitDelivered(3, 5_000));
+        pipeline.stop();
+        assertEquals(1, pipeline.getFailed());
+        assertEquals(0, pipeline.getSpillBacklog());
+        assertFalse(Files.exists(spillFile));
+        assertFalse(Files.exists(tempDir.resolve("notifications.spill.replay")));
+    }
+
+    @Test
+    public void givenQueueKeptFull_whenDispatching_expectSpilledNotificationsDeliveredMeanwhile() throws Exception {
+        NotificationPipeline pipeline = pipeline(2, OverflowPolicy.SPILL);
+        for (int i = 1; i <= 5; i++) {
+            pipeline.submit(completedLoan("SP-ILL0-00" + i));
+        }
+        AtomicBoolean producing = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> {
+            while (producing.get()) {
+                pipeline.submit(completedLoan("NO-TIFY-001"));
+            }
+        });
+        pipeline.start();
+        producer.start();
+
+        try {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (spilledDelivered() < 5 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(5, spilledDelivered());
+            assertTrue(producer.isAlive());
+        } finally {
+            producing.set(false);
+            producer.join();
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    public void givenStoppedPipeline_whenSubmitting_expectNotificationDroppedOrSpilled() throws Exception {
+        NotificationPipeline shedding = pipeline(10, OverflowPolicy.SHED);
+        shedding.start();
+        shedding.stop();
+        shedding.submit(completedLoan("NO-TIFY-001"));
+        assertEquals(0, shedding.getQueueDepth());
+        assertEquals(1, shedding.getDropped());
+
+        NotificationPipeline spilling = pipeline(10, OverflowPolicy.SPILL);
+        spilling.start();
+        spilling.stop();
+        spilling.submit(completedLoan("NO-TIFY-002"));
+        assertEquals(0, spilling.getQueueDepth());
+        assertEquals(1, spilling.getSpilled());
+        assertEquals(1, Files.readAllLines(tempDir.resolve("notifications.spill")).size());
+    }
+
+    private long spilledDelivered() {
+        return sink.getDelivered().stream()
+                .filter(notification -> notification.getCustomerId().startsWith("SP-ILL0"))
+                .count();
+    }
+
+    private NotificationPipeline pipeline(int capacity, OverflowPolicy overflowPolicy) {
+        return new NotificationPipeline(sink, new ObjectMapper(), capacity, overflowPolicy, 10, 3,
+                Duration.ofMillis(10), tempDir.resolve("notifications.spill").toString());
+    }
+
+    private LoanRecord completedLoan(String customerId) {
+        LoanRecord loanRecord = LoanRecord.pending(LoanApprovalRequest.builder()
+                .uuid(UUID.randomUUID())
+                .customerId(customerId)
+                .loanAmount(Amount.ofCents(12345))
+                .approvers(Collections.singleton(new Approver("Senior Approver")))
+                .build());
+        loanRecord.decide("Senior Approver", APPROVED);
+        return loanRecord;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.loans.notification;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process sink for tests: keeps delivered notifications and can fail a number of deliveries.
+ */
+public class StubNotificationSink implements NotificationSink {
+
+    private final Queue<Notification> delivered = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger batches = new AtomicInteger();
+
+    @Override
+    public void deliver(List<Notification> notifications) {
+        if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new IllegalStateException("Stub delivery failure");
+        }
+        batches.incrementAndGet();
+        delivered.addAll(notifications);
+    }
+
+    public void failNext(int deliveries) {
+        failures.set(deliveries);
+    }
+
+    public Queue<Notification> getDelivered() {
+        return delivered;
+    }
+
+    public int getBatches() {
+        return batches.get();
+    }
+
+    public boolean awaitDelivered(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (delivered.size() < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.loans.service;
+
+import com.example.loans.dao.LoanRepository;
+import com.example.loans.finance.AmountSummaryStatistics;
+import com.example.loans.model.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatisticsStreamTest {
+
+    LoanService loanService;
+    LoanRepository loanRepository;
+    AtomicInteger computations = new AtomicInteger();
+    AtomicLong contractsSent = new AtomicLong();
+
+    @BeforeEach
+    public void each() {
+        loanService = mock(LoanService.class);
+        loanRepository = mock(LoanRepository.class);
+        when(loanService.getStatistics()).thenAnswer(invocation -> {
+            computations.incrementAndGet();
+            return Statistics.of(new AmountSummaryStatistics());
+        });
+        when(loanRepository.getContractsSent()).thenAnswer(invocation -> contractsSent.get());
+    }
+
+    @Test
+    public void givenThreeSubscribers_whenStreaming_expectEveryUpdateComputedOnceForAll() {
+        StatisticsStream stream = new StatisticsStream(loanService, loanRepository, Duration.ofMillis(50), Duration.ofMillis(10));
+
+        List<List<String>> received = Flux.range(0, 3)
+                .flatMap(subscriber -> stream.subscribe().take(5).map(ServerSentEvent::id).collectList())
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(3, received.size());
+        received.forEach(ids -> assertEquals(5, ids.size()));
+        assertTrue(computations.get() < 3 * 5, computations.get() + " computations");
+    }
+
+    @Test
+    public void givenLongTick_whenContractSent_expectUpdateBeforeTick() {
+        StatisticsStream stream = new StatisticsStream(loanService, loanRepository, Duration.ofMinutes(1), Duration.ofMillis(10));
+
+        StepVerifier.create(stream.subscribe())
+                .expectNextMatches(update -> "1".equals(update.id()))
+                .then(contractsSent::incrementAndGet)
+                .expectNextMatches(update -> "2".equals(update.id()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    public void givenSlowSubscriber_whenUpdatesPileUp_expectOnlyLatestDelivered() {
+        StatisticsStream stream = new StatisticsStream(loanService, loanRepository, Duration.ofMillis(10), Duration.ofMillis(10));
+
+        StepVerifier.create(stream.subscribe(), 1)
+                .expectNextMatches(update -> "1".equals(update.id()))
+                .then(() -> sleep(300))
+                .thenRequest(1)
+                .expectNextMatches(update -> Long.parseLong(update.id()) > 5)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.loans.snapshot;
+
+import com.example.loans.finance.Amount;
+import com.example.loans.model.Approver;
+import com.example.loans.model.EventKey;
+import com.example.loans.model.LoanApprovalRequest;
+import com.example.loans.model.LoanRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.example.loans.model.DecisionState.APPROVED;
+import static com.example.loans.model.DecisionState.PENDING;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenSnapshotSpanningSeveralChunks_whenReading_expectEveryRecordWithDecisions() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        LoanRecord decided = loan("SN-APSH-000");
+        decided.decide("Senior Approver", APPROVED);
+        EventKey completion = new EventKey(System.currentTimeMillis(), 7);
+        try (SnapshotWriter writer = store.writer(new SnapshotHeader(1000, 42, 20_000, 1))) {
+            writer.pending(decided);
+            for (int i = 1; i < 20_000; i++) {
+                writer.pending(loan(String.format("SN-%04d-%03d", i / 1000, i % 1000)));
+            }
+            writer.completion(completion, decided);
+            writer.commit();
+        }
+
+        List<LoanRecord> pending = new ArrayList<>();
+        Map<EventKey, LoanRecord> completed = new LinkedHashMap<>();
+        SnapshotHeader header = new SnapshotReader().read(store.latest().get(), handler(pending, completed));
+
+        assertEquals(42, header.getJournalOffset());
+        assertEquals(20_000, store.latestHeader().get().getPendingCount());
+        assertEquals(20_000, pending.size());
+        assertEquals(1, completed.size());
+        assertEquals("SN-APSH-000", pending.get(0).getCustomerId());
+        assertEquals(APPROVED, pending.get(0).getDecisionOf(1));
+        assertEquals(PENDING, pending.get(0).getDecisionState());
+        assertEquals(decided.getUuid(), completed.get(completion).getUuid());
+    }
+
+    @Test
+    public void givenMoreSnapshotsThanRetained_whenCommitting_expectOldestDeletedAndUncommittedDiscarded() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        for (int i = 1; i <= 3; i++) {
+            try (SnapshotWriter writer = store.writer(new SnapshotHeader(i, 0, 0, 0))) {
+                writer.commit();
+            }
+        }
+        try (SnapshotWriter writer = store.writer(new SnapshotHeader(4, 0, 0, 0))) {
+            writer.pending(loan("SN-APSH-004"));
+        }
+
+        assertEquals(2, directory.toFile().list().length);
+        assertEquals(3, store.latestHeader().get().getCreatedMillis());
+    }
+
+    @Test
+    public void givenCorruptChunk_whenReading_expectFailure() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        try (SnapshotWriter writer = store.writer(new SnapshotHeader(1, 0, 1, 0))) {
+            writer.pending(loan("SN-APSH-001"));
+            writer.commit();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(store.latest().get().toFile(), "rw")) {
+            file.seek(SnapshotFormat.HEADER_SIZE + SnapshotFormat.CHUNK_HEADER_SIZE + 20);
+            file.write(0x7F);
+        }
+
+        assertThrows(IOException.class, () -> new SnapshotReader().read(store.latest().get(), handler(new ArrayList<>(), new LinkedHashMap<>())));
+    }
+
+    @Test
+    public void givenApproverNameLongerThanLimit_whenWriting_expectRejectedInsteadOfTruncated() throws IOException {
+        SnapshotStore store = new SnapshotStore(directory, 2);
+        LoanRecord loanRecord = LoanRecord.pending(LoanApprovalRequest.builder()
+                .uuid(UUID.randomUUID())
+                .customerId("SN-APSH-001")
+                .loanAmount(Amount.ofCents(12345))
+                .approvers(Collections.singleton(new Approver(String.join("", Collections.nCopies(Approver.MAX_NAME_BYTES + 1, "x")))))
+                .timestamp(ZonedDateTime.now())
+                .build());
+
+        try (SnapshotWriter writer = store.writer(new SnapshotHeader(1000, 0, 1, 0))) {
+            assertThrows(IllegalArgumentException.class, () -> writer.pending(loanRecord));
+        }
+        assertFalse(store.latest().isPresent());
+    }
+
+    private static SnapshotReader.Handler handler(List<LoanRecord> pending, Map<EventKey, LoanRecord> completed) {
+        return new SnapshotReader.Handler() {
+            @Override
+            public void pending(LoanRecord loanRecord) {
+                pending.add(loanRecord);
+            }
+
+            @Override
+            public void completion(EventKey completion, LoanRecord loanRecord) {
+                completed.put(completion, loanRecord);
+            }
+        };
+    }
+
+    private static LoanRecord loan(String customerId) {
+        return LoanRecord.pending(LoanApprovalRequest.builder()
+                .uuid(UUID.randomUUID())
+                .customerId(customerId)
+                .loanAmount(Amount.ofCents(12345))
+                .approvers(new LinkedHashSet<>(Arrays.asList(new Approver("Junior Approver"), new Approver("Senior Approver"))))
+                .timestamp(ZonedDateTime.now())
+                .build());
+    }
+}